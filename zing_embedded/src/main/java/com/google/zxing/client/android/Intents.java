@@ -207,6 +207,16 @@ public final class Intents {
          */
         public static final int MIXED_SCAN = 2;
 
+        /**
+         * Scan for both normal and inverted barcodes in every frame, binarizing it only once.
+         */
+        public static final int MIXED_FRAME_SCAN = 3;
+
+        /**
+         * Scan for all the barcodes in every frame, and deliver those of a frame together.
+         */
+        public static final int MULTI_SCAN = 4;
+
         private Scan() {
         }
     }
@@ -61,6 +61,14 @@ public class BarcodeResult {
         return sourceData.getBitmap(null, mScaleFactor);
     }
 
+    /**
+     * @param converter the converter, whose pixel buffer is reused from result to result
+     * @return {@link Bitmap} with barcode preview
+     */
+    public Bitmap getBitmap(YuvToArgbConverter converter) {
+        return sourceData.getBitmap(null, mScaleFactor, converter);
+    }
+
     public List<ResultPoint> getTransformedResultPoints() {
         if (this.mResult.getResultPoints() == null) {
             return Collections.emptyList();
@@ -0,0 +1,138 @@
+package com.qrscanner.barcodescanner;
+
+import android.graphics.Rect;
+
+import com.google.zxing.ResultPoint;
+
+/**
+ * Tracks the location of a barcode across preview frames.
+ *
+ * A barcode rarely moves more than a few pixels from one frame to the next, so once it was found,
+ * the next frame is first searched in a small region around its predicted location. The
+ * prediction extrapolates the movement between the last two hits. After a miss, the region grows,
+ * and after a few consecutive misses the barcode is considered lost.
+ *
+ * All coordinates are those of the LuminanceSource being decoded. A tracker is not thread-safe;
+ * use one per Decoder.
+ *
+ * @see Decoder#setTracker(BarcodeTracker)
+ */
+public class BarcodeTracker {
+    /** Number of consecutive misses after which the barcode is considered lost. */
+    private static final int MAX_MISSES = 3;
+
+    /** Margin around the barcode, as a fraction of its size. */
+    private static final float MARGIN = 0.5f;
+
+    /** Minimum margin around the barcode, in pixels. */
+    private static final int MIN_MARGIN = 16;
+
+    /** Above this fraction of the image area, a region search saves too little to be worth it. */
+    private static final float MAX_REGION_AREA = 0.5f;
+
+    private boolean tracking = false;
+    private float left;
+    private float top;
+    private float right;
+    private float bottom;
+    private float velocityX;
+    private float velocityY;
+    private int misses;
+
+    /**
+     *
+     * @return true if the location of a barcode is currently known
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Predict the region to search first in the next image.
+     *
+     * @param width width of the image
+     * @param height height of the image
+     * @return the region, or null if the whole image should be searched
+     */
+    public Rect predictRegion(int width, int height) {
+        if (!tracking) {
+            return null;
+        }
+        float size = Math.max(right - left, bottom - top);
+        // Widen the search while the barcode is not found
+        float margin = Math.max(size * MARGIN, MIN_MARGIN) * (1 + misses);
+        float dx = velocityX * (1 + misses);
+        float dy = velocityY * (1 + misses);
+
+        Rect region = new Rect(
+                Math.max(0, (int) (left + dx - margin)),
+                Math.max(0, (int) (top + dy - margin)),
+                Math.min(width, (int) (right + dx + margin) + 1),
+                Math.min(height, (int) (bottom + dy + margin) + 1));
+        if (region.isEmpty() || region.width() * region.height() > width * height * MAX_REGION_AREA) {
+            return null;
+        }
+        return region;
+    }
+
+    /**
+     * Record that a barcode was found.
+     *
+     * @param points the result points of the barcode, in image coordinates
+     */
+    public void found(ResultPoint[] points) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        if (points != null) {
+            for (ResultPoint point : points) {
+                if (point != null) {
+                    minX = Math.min(minX, point.getX());
+                    minY = Math.min(minY, point.getY());
+                    maxX = Math.max(maxX, point.getX());
+                    maxY = Math.max(maxY, point.getY());
+                }
+            }
+        }
+        if (minX > maxX) {
+            // Nothing to track
+            reset();
+            return;
+        }
+
+        if (tracking) {
+            // Frames missed in between are part of the movement
+            velocityX = ((minX + maxX) - (left + right)) / 2 / (1 + misses);
+            velocityY = ((minY + maxY) - (top + bottom)) / 2 / (1 + misses);
+        } else {
+            velocityX = 0;
+            velocityY = 0;
+        }
+        left = minX;
+        top = minY;
+        right = maxX;
+        bottom = maxY;
+        misses = 0;
+        tracking = true;
+    }
+
+    /**
+     * Record that no barcode was found in an image.
+     */
+    public void missed() {
+        if (tracking && ++misses > MAX_MISSES) {
+            reset();
+        }
+    }
+
+    /**
+     * Forget the tracked barcode.
+     */
+    public void reset() {
+        tracking = false;
+        velocityX = 0;
+        velocityY = 0;
+        misses = 0;
+    }
+}
@@ -8,9 +8,13 @@ import android.util.AttributeSet;
 import com.qrscanner.zing_embedded.R;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.ResultPoint;
+import com.qrscanner.barcodescanner.camera.CameraInstance;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A view for scanning barcodes.
@@ -31,9 +35,24 @@ public class BarcodeView extends CameraPreview {
         CONTINUOUS
     }
 
+    // Optional stages of the Decoders created from the DecoderFactory
+    private enum DecoderOption {
+        TRACKING,
+        QUALITY_GATE,
+        CHANGE_DETECTION,
+        AUTO_SCALE
+    }
+
     private DecodeMode decodeMode = DecodeMode.NONE;
     private BarcodeCallback callback = null;
     private DecoderThread decoderThread;
+    private DecoderPool decoderPool;
+    private int decoderWorkerCount = 1;
+    private final Set<DecoderOption> decoderOptions = EnumSet.noneOf(DecoderOption.class);
+
+    private final ScanMetrics scanMetrics = new ScanMetrics();
+    private ScanMetrics.Listener scanMetricsListener;
+    private long scanMetricsInterval;
 
     private DecoderFactory decoderFactory;
 
@@ -55,6 +74,26 @@ public class BarcodeView extends CameraPreview {
                     }
                 }
                 return true;
+            } else if (message.what == R.id.zxing_decode_multiple_succeeded) {
+                //noinspection unchecked
+                List<BarcodeResult> results = (List<BarcodeResult>) message.obj;
+
+                if (callback != null && decodeMode != DecodeMode.NONE) {
+                    if (callback instanceof MultiBarcodeCallback) {
+                        ((MultiBarcodeCallback) callback).barcodeResults(results);
+                    } else if (decodeMode == DecodeMode.SINGLE) {
+                        callback.barcodeResult(results.get(0));
+                    } else {
+                        for (BarcodeResult result : results) {
+                            callback.barcodeResult(result);
+                        }
+                    }
+                    // The barcodes of one frame count as a single scan.
+                    if (decodeMode == DecodeMode.SINGLE) {
+                        stopDecoding();
+                    }
+                }
+                return true;
             } else if (message.what == R.id.zxing_decode_failed) {
                 // Failed. Next preview is automatically tried.
                 return true;
@@ -86,6 +125,16 @@ public class BarcodeView extends CameraPreview {
         initialize();
     }
 
+    private final Runnable reportScanMetrics = new Runnable() {
+        @Override
+        public void run() {
+            if (scanMetricsListener != null) {
+                scanMetricsListener.onScanMetrics(scanMetrics.getSnapshot());
+                resultHandler.postDelayed(this, scanMetricsInterval);
+            }
+        }
+    };
+
     private void initialize() {
         decoderFactory = new DefaultDecoderFactory();
         resultHandler = new Handler(resultCallback);
@@ -103,9 +152,169 @@ public class BarcodeView extends CameraPreview {
         Util.validateMainThread();
 
         this.decoderFactory = decoderFactory;
+        recreateDecoders();
+    }
+
+    private void recreateDecoders() {
         if (this.decoderThread != null) {
             this.decoderThread.setDecoder(createDecoder());
         }
+        if (this.decoderPool != null) {
+            this.decoderPool.setDecoders(createDecoders(decoderPool.getWorkerCount()));
+        }
+    }
+
+    /**
+     * Set the number of threads decoding preview frames in parallel. Defaults to 1.
+     *
+     * With more than one thread, a {@link DecoderPool} is used, and the DecoderFactory creates one
+     * Decoder per thread.
+     *
+     * Call this from UI thread only.
+     *
+     * @param decoderWorkerCount the number of decoder threads
+     */
+    public void setDecoderWorkerCount(int decoderWorkerCount) {
+        Util.validateMainThread();
+
+        if (decoderWorkerCount < 1) {
+            throw new IllegalArgumentException("At least one decoder thread is required");
+        }
+        if (this.decoderWorkerCount != decoderWorkerCount) {
+            this.decoderWorkerCount = decoderWorkerCount;
+            if (decoderThread != null || decoderPool != null) {
+                startDecoderThread();
+            }
+        }
+    }
+
+    public int getDecoderWorkerCount() {
+        return decoderWorkerCount;
+    }
+
+    /**
+     * Track the barcode location from frame to frame, and search around its last location first.
+     * This speeds up finding the same barcode again, e.g. to confirm a result over several frames.
+     *
+     * Call this from UI thread only.
+     *
+     * @param trackingEnabled true to enable tracking
+     * @see BarcodeTracker
+     */
+    public void setTrackingEnabled(boolean trackingEnabled) {
+        setDecoderOption(DecoderOption.TRACKING, trackingEnabled);
+    }
+
+    public boolean isTrackingEnabled() {
+        return decoderOptions.contains(DecoderOption.TRACKING);
+    }
+
+    /**
+     * Skip preview frames which are too blurry, flat or badly exposed to decode, e.g. while
+     * autofocus is hunting, and only search the center of somewhat blurry ones. This saves CPU
+     * time and battery when scanning for long periods.
+     *
+     * Call this from UI thread only.
+     *
+     * @param qualityGateEnabled true to enable the quality gate
+     * @see FrameQualityGate
+     */
+    public void setQualityGateEnabled(boolean qualityGateEnabled) {
+        setDecoderOption(DecoderOption.QUALITY_GATE, qualityGateEnabled);
+    }
+
+    public boolean isQualityGateEnabled() {
+        return decoderOptions.contains(DecoderOption.QUALITY_GATE);
+    }
+
+    /**
+     * Skip preview frames while the scene does not change, e.g. while the camera faces an empty
+     * counter or a barcode that was already read. A frame is still decoded about once per second.
+     * This saves battery for scanners that sit idle most of the time.
+     *
+     * Call this from UI thread only.
+     *
+     * @param changeDetectionEnabled true to enable change detection
+     * @see SceneChangeDetector
+     */
+    public void setChangeDetectionEnabled(boolean changeDetectionEnabled) {
+        setDecoderOption(DecoderOption.CHANGE_DETECTION, changeDetectionEnabled);
+    }
+
+    public boolean isChangeDetectionEnabled() {
+        return decoderOptions.contains(DecoderOption.CHANGE_DETECTION);
+    }
+
+    /**
+     * Scale down preview frames before decoding them, by a factor chosen from the module size of
+     * the last barcode found. Large barcodes close to the camera are then decoded at a half or a
+     * quarter of the resolution, while frames without a barcode are decoded at full resolution.
+     *
+     * Call this from UI thread only.
+     *
+     * @param autoScaleEnabled true to enable automatic scaling
+     * @see ScaleSelector
+     */
+    public void setAutoScaleEnabled(boolean autoScaleEnabled) {
+        setDecoderOption(DecoderOption.AUTO_SCALE, autoScaleEnabled);
+    }
+
+    public boolean isAutoScaleEnabled() {
+        return decoderOptions.contains(DecoderOption.AUTO_SCALE);
+    }
+
+    private void setDecoderOption(DecoderOption option, boolean enabled) {
+        Util.validateMainThread();
+
+        boolean changed = enabled ? decoderOptions.add(option) : decoderOptions.remove(option);
+        if (changed) {
+            // Recreate the decoders, as for a new DecoderFactory.
+            recreateDecoders();
+        }
+    }
+
+    /**
+     * Get the metrics of the scanning pipeline: camera frame rate, frames decoded and dropped,
+     * decode latency, time to the first result and queue depth.
+     *
+     * The metrics are counted since the last call to resume(), and may be read from any thread.
+     *
+     * @return the metrics
+     */
+    public ScanMetrics getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * Report the metrics of the scanning pipeline at regular intervals, while the scanner is
+     * resumed.
+     *
+     * Call this from UI thread only.
+     *
+     * @param listener called with a snapshot of the metrics on the UI thread, or null to stop
+     * @param intervalMillis time between reports, in milliseconds
+     * @see #getScanMetrics()
+     */
+    public void setScanMetricsListener(ScanMetrics.Listener listener, long intervalMillis) {
+        Util.validateMainThread();
+
+        if (listener != null && intervalMillis <= 0) {
+            throw new IllegalArgumentException("The interval must be positive");
+        }
+        this.scanMetricsListener = listener;
+        this.scanMetricsInterval = intervalMillis;
+        resultHandler.removeCallbacks(reportScanMetrics);
+        if (listener != null && isActive()) {
+            resultHandler.postDelayed(reportScanMetrics, intervalMillis);
+        }
+    }
+
+    private List<Decoder> createDecoders(int count) {
+        List<Decoder> decoders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            decoders.add(createDecoder());
+        }
+        return decoders;
     }
 
     private Decoder createDecoder() {
@@ -117,6 +326,18 @@ public class BarcodeView extends CameraPreview {
         hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, callback);
         Decoder decoder = this.decoderFactory.createDecoder(hints);
         callback.setDecoder(decoder);
+        if (decoderOptions.contains(DecoderOption.TRACKING)) {
+            decoder.setTracker(new BarcodeTracker());
+        }
+        if (decoderOptions.contains(DecoderOption.QUALITY_GATE)) {
+            decoder.setQualityGate(new FrameQualityGate());
+        }
+        if (decoderOptions.contains(DecoderOption.CHANGE_DETECTION)) {
+            decoder.setChangeDetector(new SceneChangeDetector());
+        }
+        if (decoderOptions.contains(DecoderOption.AUTO_SCALE)) {
+            decoder.setScaleSelector(new ScaleSelector());
+        }
         return decoder;
     }
 
@@ -174,12 +395,27 @@ public class BarcodeView extends CameraPreview {
             // We only start the thread if both:
             // 1. decoding was requested
             // 2. the preview is active
-            decoderThread = new DecoderThread(getCameraInstance(), createDecoder(), resultHandler);
-            decoderThread.setCropRect(getPreviewFramingRect());
-            decoderThread.start();
+            if (decoderWorkerCount > 1) {
+                decoderPool = new DecoderPool(getCameraInstance(), createDecoders(decoderWorkerCount), resultHandler);
+                decoderPool.setCropRect(getPreviewFramingRect());
+                decoderPool.setScanMetrics(scanMetrics);
+                decoderPool.start();
+            } else {
+                decoderThread = new DecoderThread(getCameraInstance(), createDecoder(), resultHandler);
+                decoderThread.setCropRect(getPreviewFramingRect());
+                decoderThread.setScanMetrics(scanMetrics);
+                decoderThread.start();
+            }
         }
     }
 
+    @Override
+    protected CameraInstance createCameraInstance() {
+        CameraInstance cameraInstance = super.createCameraInstance();
+        cameraInstance.setScanMetrics(scanMetrics);
+        return cameraInstance;
+    }
+
     @Override
     protected void previewStarted() {
         super.previewStarted();
@@ -192,9 +428,33 @@ public class BarcodeView extends CameraPreview {
             decoderThread.stop();
             decoderThread = null;
         }
+        if (decoderPool != null) {
+            decoderPool.stop();
+            decoderPool = null;
+        }
     }
 
     public Handler getBarcodeResultHandler() { return resultHandler; }
+
+    /**
+     * Start the camera preview and decoding, and restart the scan metrics.
+     *
+     * Call from the Activity's onResume() method.
+     */
+    @Override
+    public void resume() {
+        if (!isActive()) {
+            // resume() may be called again while resumed
+            scanMetrics.reset();
+        }
+        super.resume();
+
+        resultHandler.removeCallbacks(reportScanMetrics);
+        if (scanMetricsListener != null) {
+            resultHandler.postDelayed(reportScanMetrics, scanMetricsInterval);
+        }
+    }
+
     /**
      * Stops the live preview and decoding.
      *
@@ -203,6 +463,7 @@ public class BarcodeView extends CameraPreview {
     @Override
     public void pause() {
         stopDecoderThread();
+        resultHandler.removeCallbacks(reportScanMetrics);
 
         super.pause();
     }
@@ -32,6 +32,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manages barcode scanning for a CaptureActivity. This class may be used to have a custom Activity
@@ -67,6 +69,10 @@ public class CaptureManager {
 
     private Handler handler;
 
+    // Saves barcode images off the UI thread, with one converter reused for all of them
+    private final ExecutorService imageSaver = Executors.newSingleThreadExecutor();
+    private final YuvToArgbConverter imageConverter = new YuvToArgbConverter();
+
     private boolean finishWhenClosed = false;
 
     private BarcodeCallback callback = new BarcodeCallback() {
@@ -289,6 +295,7 @@ public class CaptureManager {
         destroyed = true;
         inactivityTimer.cancel();
         handler.removeCallbacksAndMessages(null);
+        imageSaver.shutdown();
     }
 
     /**
@@ -348,13 +355,15 @@ public class CaptureManager {
      * Save the barcode image to a temporary file stored in the application's cache, and return its path.
      * Only does so if returnBarcodeImagePath is enabled.
      *
+     * This is called on the imageSaver thread.
+     *
      * @param rawResult the BarcodeResult, must not be null
      * @return the path or null
      */
     private String getBarcodeImagePath(BarcodeResult rawResult) {
         String barcodeImagePath = null;
         if (returnBarcodeImagePath) {
-            Bitmap bmp = rawResult.getBitmap();
+            Bitmap bmp = rawResult.getBitmap(imageConverter);
             try {
                 File bitmapFile = File.createTempFile("barcodeimage", ".jpg", activity.getCacheDir());
                 FileOutputStream outputStream = new FileOutputStream(bitmapFile);
@@ -390,8 +399,35 @@ public class CaptureManager {
         closeAndFinish();
     }
 
-    protected void returnResult(BarcodeResult rawResult) {
-        Intent intent = resultIntent(rawResult, getBarcodeImagePath(rawResult));
+    protected void returnResult(final BarcodeResult rawResult) {
+        if (!returnBarcodeImagePath) {
+            returnResult(rawResult, null);
+            return;
+        }
+        if (destroyed) {
+            // The image saver is shut down, and the result would not be returned anyway
+            return;
+        }
+
+        // Converting and compressing the image takes too long for the UI thread.
+        imageSaver.execute(new Runnable() {
+            @Override
+            public void run() {
+                final String barcodeImagePath = getBarcodeImagePath(rawResult);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!destroyed) {
+                            returnResult(rawResult, barcodeImagePath);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void returnResult(BarcodeResult rawResult, String barcodeImagePath) {
+        Intent intent = resultIntent(rawResult, barcodeImagePath);
         activity.setResult(Activity.RESULT_OK, intent);
         closeAndFinish();
     }
@@ -1,15 +1,20 @@
 package com.qrscanner.barcodescanner;
 
+import android.graphics.Rect;
+
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.MultiFormatReader;
 import com.google.zxing.Reader;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.BinarizerWorkspace;
 import com.google.zxing.common.HybridBinarizer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -22,6 +27,33 @@ import java.util.List;
 public class Decoder implements ResultPointCallback {
     private Reader reader;
 
+    private final BinarizerWorkspace binarizerWorkspace = new BinarizerWorkspace();
+
+    // Region searches get their own buffers, so that they don't resize the full-frame ones.
+    private final BinarizerWorkspace regionWorkspace = new BinarizerWorkspace();
+    private BinarizerWorkspace currentWorkspace = binarizerWorkspace;
+
+    private BarcodeTracker tracker;
+
+    private FrameQualityGate qualityGate;
+
+    private SceneChangeDetector changeDetector;
+
+    private ScaleSelector scaleSelector;
+
+    private DecodeDeadline deadline;
+
+    // Whether admit() skipped the last image
+    private boolean frameSkipped;
+
+    // Offset of the region being searched, added to possible result points.
+    private int regionLeft;
+    private int regionTop;
+
+    // Size of the last image, to notice a change of scale.
+    private int lastWidth;
+    private int lastHeight;
+
     /**
      * Create a new Decoder with the specified Reader.
      *
@@ -37,6 +69,92 @@ public class Decoder implements ResultPointCallback {
         return reader;
     }
 
+    /**
+     * Buffers reused by the binarizer from frame to frame. Since a Decoder is only used from a
+     * single thread, binarizers created in toBitmap() may share them. While a tracked region is
+     * searched, a separate workspace is returned.
+     *
+     * @return the BinarizerWorkspace of this decoder
+     */
+    protected BinarizerWorkspace getBinarizerWorkspace() {
+        return currentWorkspace;
+    }
+
+    public BarcodeTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Track the barcode location across images.
+     *
+     * With a tracker, each image is first searched around the location predicted from previous
+     * results, and only searched as a whole if no barcode is found there.
+     *
+     * @param tracker the tracker, or null to always search the whole image
+     */
+    public void setTracker(BarcodeTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    public FrameQualityGate getQualityGate() {
+        return qualityGate;
+    }
+
+    /**
+     * Estimate the quality of each image before decoding it, and skip images which are too
+     * blurry or flat to decode, or only search their center.
+     *
+     * @param qualityGate the gate, or null to decode every image in full
+     */
+    public void setQualityGate(FrameQualityGate qualityGate) {
+        this.qualityGate = qualityGate;
+    }
+
+    public SceneChangeDetector getChangeDetector() {
+        return changeDetector;
+    }
+
+    /**
+     * Skip images while the scene does not change, except for an occasional image.
+     *
+     * @param changeDetector the detector, or null to decode every image
+     */
+    public void setChangeDetector(SceneChangeDetector changeDetector) {
+        this.changeDetector = changeDetector;
+    }
+
+    public ScaleSelector getScaleSelector() {
+        return scaleSelector;
+    }
+
+    /**
+     * Scale down camera frames before decoding them, by a factor chosen from the size of the
+     * last barcode found.
+     *
+     * The selector is consulted by the thread creating the LuminanceSource of each frame.
+     *
+     * @param scaleSelector the selector, or null to keep the scaling factor of the frames
+     */
+    public void setScaleSelector(ScaleSelector scaleSelector) {
+        this.scaleSelector = scaleSelector;
+    }
+
+    public DecodeDeadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Bound the time spent on each image.
+     *
+     * The deadline is restarted before each image. It must also be passed to the reader with
+     * DecodeHintType.DEADLINE, for the reader to give up once it expires.
+     *
+     * @param deadline the deadline, or null to spend as long as needed
+     */
+    public void setDeadline(DecodeDeadline deadline) {
+        this.deadline = deadline;
+    }
+
     /**
      * Given an image source, attempt to decode the barcode.
      *
@@ -46,9 +164,134 @@ public class Decoder implements ResultPointCallback {
      * @return a Result or null
      */
     public Result decode(LuminanceSource source) {
+        FrameQualityGate.Verdict verdict = admit(source);
+        if (verdict == FrameQualityGate.Verdict.SKIP) {
+            return null;
+        }
+        BarcodeTracker tracker = this.tracker;
+        if (tracker == null) {
+            return decodeWhole(source, verdict);
+        }
+        if (source.getWidth() != lastWidth || source.getHeight() != lastHeight) {
+            // The image was cropped or scaled differently, so the last location no longer applies.
+            lastWidth = source.getWidth();
+            lastHeight = source.getHeight();
+            tracker.reset();
+        }
+
+        Rect region = source.isCropSupported() ? tracker.predictRegion(source.getWidth(), source.getHeight()) : null;
+        if (region != null) {
+            Result result = decodeRegion(source, region);
+            if (result != null) {
+                tracker.found(result.getResultPoints());
+                return result;
+            }
+        }
+
+        Result result = decodeWhole(source, verdict);
+        if (result != null) {
+            tracker.found(result.getResultPoints());
+        } else {
+            tracker.missed();
+        }
+        return result;
+    }
+
+    /**
+     * Given an image source, attempt to decode all the barcodes in it.
+     *
+     * This decoder only searches for one barcode; see MultiBarcodeDecoder for more.
+     *
+     * Must not raise an exception.
+     *
+     * @param source the image source
+     * @return the results, or an empty list
+     */
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        Result result = decode(source);
+        return result == null ? Collections.<Result>emptyList() : Collections.singletonList(result);
+    }
+
+    /**
+     * Restart the deadline, and decide whether the image is worth decoding.
+     *
+     * @param source the image source
+     * @return how to decode the image, or SKIP to not decode it
+     */
+    FrameQualityGate.Verdict admit(LuminanceSource source) {
+        if (deadline != null) {
+            deadline.restart();
+        }
+        FrameQualityGate.Verdict verdict = FrameQualityGate.Verdict.DECODE;
+        if (changeDetector != null && !changeDetector.shouldDecode(source)) {
+            verdict = FrameQualityGate.Verdict.SKIP;
+        } else if (qualityGate != null) {
+            verdict = qualityGate.evaluate(source);
+        }
+        frameSkipped = verdict == FrameQualityGate.Verdict.SKIP;
+        if (frameSkipped) {
+            possibleResultPoints.clear();
+        }
+        return verdict;
+    }
+
+    /**
+     *
+     * @return true if the last image was skipped without decoding it, by the SceneChangeDetector
+     *         or the FrameQualityGate
+     */
+    boolean isFrameSkipped() {
+        return frameSkipped;
+    }
+
+    private Result decodeWhole(LuminanceSource source, FrameQualityGate.Verdict verdict) {
+        if (verdict == FrameQualityGate.Verdict.DECODE_CENTER && source.isCropSupported()) {
+            int width = source.getWidth();
+            int height = source.getHeight();
+            return decodeRegion(source, new Rect(width / 8, height / 8, width - width / 8, height - height / 8));
+        }
         return decode(toBitmap(source));
     }
 
+    private Result decodeRegion(LuminanceSource source, Rect region) {
+        LuminanceSource regionSource = source.crop(region.left, region.top, region.width(), region.height());
+        regionLeft = region.left;
+        regionTop = region.top;
+        currentWorkspace = regionWorkspace;
+        Result result;
+        try {
+            result = decode(toBitmap(regionSource));
+        } finally {
+            regionLeft = 0;
+            regionTop = 0;
+            currentWorkspace = binarizerWorkspace;
+        }
+        if (result == null) {
+            return null;
+        }
+
+        // Map the result points back to the whole image.
+        ResultPoint[] points = result.getResultPoints();
+        ResultPoint[] translatedPoints = null;
+        if (points != null) {
+            translatedPoints = new ResultPoint[points.length];
+            for (int i = 0; i < points.length; i++) {
+                translatedPoints[i] = translate(points[i], region.left, region.top);
+            }
+        }
+        Result translated = new Result(result.getText(), result.getRawBytes(), result.getNumBits(),
+                translatedPoints, result.getBarcodeFormat(), result.getTimestamp());
+        translated.putAllMetadata(result.getResultMetadata());
+        return translated;
+    }
+
+    private static ResultPoint translate(ResultPoint point, int dx, int dy) {
+        if (point == null || (dx == 0 && dy == 0)) {
+            return point;
+        }
+        return new ResultPoint(point.getX() + dx, point.getY() + dy);
+    }
+
     /**
      * Given an image source, convert to a binary bitmap.
      *
@@ -58,7 +301,7 @@ public class Decoder implements ResultPointCallback {
      * @return a BinaryBitmap
      */
     protected BinaryBitmap toBitmap(LuminanceSource source) {
-        return new BinaryBitmap(new HybridBinarizer(source));
+        return new BinaryBitmap(new HybridBinarizer(source, getBinarizerWorkspace()));
     }
 
     /**
@@ -84,6 +327,13 @@ public class Decoder implements ResultPointCallback {
         }
     }
 
+    /**
+     * Forget the possible ResultPoints of the last decode, before decoding again.
+     */
+    void clearPossibleResultPoints() {
+        possibleResultPoints.clear();
+    }
+
     private List<ResultPoint> possibleResultPoints = new ArrayList<>();
 
     /**
@@ -99,6 +349,6 @@ public class Decoder implements ResultPointCallback {
 
     @Override
     public void foundPossibleResultPoint(ResultPoint point) {
-        possibleResultPoints.add(point);
+        possibleResultPoints.add(translate(point, regionLeft, regionTop));
     }
 }
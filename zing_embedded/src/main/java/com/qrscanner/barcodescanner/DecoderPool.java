@@ -0,0 +1,339 @@
+package com.qrscanner.barcodescanner;
+
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.qrscanner.zing_embedded.R;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.qrscanner.barcodescanner.camera.CameraInstance;
+import com.qrscanner.barcodescanner.camera.PreviewCallback;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Decodes preview frames on multiple threads in parallel, each with its own Decoder.
+ *
+ * A new preview frame is requested as soon as a worker is idle, instead of after the previous
+ * decode finished, so one slow frame does not stall the pipeline. Frames finishing out of order
+ * are held back, and their outcomes are posted to the result handler strictly in the order of the
+ * frames. Barcodes found are always posted. Once a newer frame has a barcode, older frames are not
+ * decoded, and the failures of older frames already decoded are not posted.
+ *
+ * The messages sent to the result handler are the same as for {@link DecoderThread}.
+ */
+public class DecoderPool {
+    private static final String TAG = DecoderPool.class.getSimpleName();
+
+    private final CameraInstance cameraInstance;
+    private final Handler resultHandler;
+    private final Worker[] workers;
+    private volatile Rect cropRect;
+    private volatile ScanMetrics scanMetrics;
+
+    private final Object LOCK = new Object();
+
+    // All fields below are guarded by LOCK.
+    private final ArrayDeque<Worker> idleWorkers = new ArrayDeque<>();
+    private boolean running = false;
+    private boolean previewRequested = false;
+    private int nextFrame = 0;
+    private int nextDeliveredFrame = 0;
+    private int lastSucceededFrame = -1;
+    // Outcomes of the frames finished before nextDeliveredFrame, by frame number
+    private final SparseArray<FrameOutcome> finishedFrames = new SparseArray<>();
+
+    /**
+     * What to post for a frame, once the frames before it are posted.
+     */
+    private static final class FrameOutcome {
+        // Null if the frame was released without decoding it
+        final List<ResultPoint> resultPoints;
+        // Null if no barcode was found
+        final Message succeeded;
+
+        FrameOutcome(List<ResultPoint> resultPoints, Message succeeded) {
+            this.resultPoints = resultPoints;
+            this.succeeded = succeeded;
+        }
+    }
+
+    private final class Worker implements Handler.Callback {
+        private final HandlerThread thread;
+        private final Handler handler;
+        private volatile Decoder decoder;
+
+        Worker(int index, Decoder decoder) {
+            this.decoder = decoder;
+            this.thread = new HandlerThread(TAG + "-" + index);
+            this.thread.start();
+            this.handler = new Handler(thread.getLooper(), this);
+        }
+
+        @Override
+        public boolean handleMessage(Message message) {
+            if (message.what == R.id.zxing_decode) {
+                decode(this, message.arg1, (SourceData) message.obj);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Create a new DecoderPool, with one worker thread per Decoder.
+     *
+     * @param cameraInstance the camera to request preview frames from
+     * @param decoders the decoders, one per worker. Each decoder is only used from a single thread.
+     * @param resultHandler handler to post results to
+     */
+    public DecoderPool(CameraInstance cameraInstance, List<Decoder> decoders, Handler resultHandler) {
+        Util.validateMainThread();
+
+        if (decoders.isEmpty()) {
+            throw new IllegalArgumentException("At least one decoder is required");
+        }
+        this.cameraInstance = cameraInstance;
+        this.resultHandler = resultHandler;
+        this.workers = new Worker[decoders.size()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i, decoders.get(i));
+        }
+    }
+
+    /**
+     *
+     * @return the number of worker threads
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Replace the decoders of the workers. A decode already in progress finishes with the old decoder.
+     *
+     * @param decoders the new decoders, one per worker
+     */
+    public void setDecoders(List<Decoder> decoders) {
+        if (decoders.size() != workers.length) {
+            throw new IllegalArgumentException("Expected " + workers.length + " decoders");
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].decoder = decoders.get(i);
+        }
+    }
+
+    public Rect getCropRect() {
+        return cropRect;
+    }
+
+    public void setCropRect(Rect cropRect) {
+        this.cropRect = cropRect;
+    }
+
+    public ScanMetrics getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * Count the frames passed through the workers, and time their decoding.
+     *
+     * @param scanMetrics the metrics to update, or null
+     */
+    public void setScanMetrics(ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+    }
+
+    /**
+     * Start decoding.
+     *
+     * This must be called from the UI thread.
+     */
+    public void start() {
+        Util.validateMainThread();
+
+        synchronized (LOCK) {
+            running = true;
+            idleWorkers.clear();
+            for (Worker worker : workers) {
+                idleWorkers.add(worker);
+            }
+            requestNextPreview();
+        }
+    }
+
+    /**
+     * Stop decoding. Frames already queued on a worker are released without decoding.
+     *
+     * This must be called from the UI thread.
+     */
+    public void stop() {
+        Util.validateMainThread();
+
+        synchronized (LOCK) {
+            running = false;
+            for (Worker worker : workers) {
+                worker.thread.quitSafely();
+            }
+        }
+    }
+
+    private final PreviewCallback previewCallback = new PreviewCallback() {
+        @Override
+        public void onPreview(SourceData sourceData) {
+            ScanMetrics metrics = scanMetrics;
+            synchronized (LOCK) {
+                previewRequested = false;
+                Worker worker = running ? idleWorkers.poll() : null;
+                if (worker == null) {
+                    sourceData.release();
+                    if (metrics != null) {
+                        metrics.frameDropped();
+                    }
+                    return;
+                }
+                if (metrics != null) {
+                    metrics.frameQueued();
+                }
+                worker.handler.obtainMessage(R.id.zxing_decode, nextFrame++, 0, sourceData).sendToTarget();
+                if (!idleWorkers.isEmpty()) {
+                    requestNextPreview();
+                }
+            }
+        }
+
+        @Override
+        public void onPreviewError(Exception e) {
+            synchronized (LOCK) {
+                previewRequested = false;
+                if (running && !idleWorkers.isEmpty()) {
+                    // Error already logged. Try again.
+                    requestNextPreview();
+                }
+            }
+        }
+    };
+
+    /**
+     * Must be called with LOCK held.
+     */
+    private void requestNextPreview() {
+        if (!previewRequested) {
+            previewRequested = true;
+            cameraInstance.requestPreview(previewCallback);
+        }
+    }
+
+    private void decode(Worker worker, int frame, SourceData sourceData) {
+        boolean stale;
+        synchronized (LOCK) {
+            stale = !running || frame < lastSucceededFrame;
+        }
+
+        ScanMetrics metrics = scanMetrics;
+        if (metrics != null) {
+            metrics.frameDequeued();
+        }
+        FrameOutcome outcome;
+        if (!stale) {
+            outcome = decode(worker.decoder, sourceData);
+        } else {
+            outcome = new FrameOutcome(null, null);
+            if (metrics != null) {
+                metrics.frameDropped();
+            }
+        }
+        sourceData.release();
+
+        synchronized (LOCK) {
+            finishFrame(frame, outcome);
+            idleWorkers.add(worker);
+            if (running) {
+                requestNextPreview();
+            }
+        }
+    }
+
+    private FrameOutcome decode(Decoder decoder, SourceData sourceData) {
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Rect cropRect = this.cropRect;
+        if (cropRect == null) {
+            cropRect = new Rect(0, 0, sourceData.getDataHeight(), sourceData.getDataWidth());
+            this.cropRect = cropRect;
+        }
+        sourceData.setCropRect(cropRect);
+        ScaleSelector scaleSelector = decoder.getScaleSelector();
+        if (scaleSelector != null) {
+            sourceData.setScalingFactor(scaleSelector.getScalingFactor());
+        }
+        LuminanceSource source = sourceData.createSource();
+        List<Result> rawResults = decoder.decodeMultiple(source);
+        Result rawResult = rawResults.isEmpty() ? null : rawResults.get(0);
+        if (scaleSelector != null) {
+            scaleSelector.update(rawResult, sourceData.getScalingFactor());
+        }
+        ScanMetrics metrics = scanMetrics;
+        if (metrics != null) {
+            if (decoder.isFrameSkipped()) {
+                metrics.frameSkipped();
+            } else {
+                metrics.frameDecoded(System.nanoTime() - startNanos, rawResult != null);
+            }
+        }
+        List<ResultPoint> resultPoints = BarcodeResult.transformResultPoints(decoder.getPossibleResultPoints(), sourceData);
+
+        Message succeeded = null;
+        if (rawResult != null) {
+            // Don't log the barcode contents for security.
+            long end = System.currentTimeMillis();
+            Log.d(TAG, "Found " + rawResults.size() + " barcode(s) in " + (end - start) + " ms");
+            if (resultHandler != null) {
+                succeeded = DecoderThread.obtainSucceededMessage(resultHandler, rawResults, sourceData);
+            }
+        }
+        return new FrameOutcome(resultPoints, succeeded);
+    }
+
+    /**
+     * Record the outcome of a frame, and post the outcomes of all the frames now in sequence.
+     *
+     * Must be called with LOCK held.
+     */
+    private void finishFrame(int frame, FrameOutcome outcome) {
+        if (outcome.succeeded != null) {
+            // Older frames still queued are not worth decoding any more
+            lastSucceededFrame = Math.max(lastSucceededFrame, frame);
+        }
+        finishedFrames.put(frame, outcome);
+        FrameOutcome next;
+        while ((next = finishedFrames.get(nextDeliveredFrame)) != null) {
+            finishedFrames.remove(nextDeliveredFrame);
+            deliver(nextDeliveredFrame, next);
+            nextDeliveredFrame++;
+        }
+    }
+
+    /**
+     * Must be called with LOCK held.
+     */
+    private void deliver(int frame, FrameOutcome outcome) {
+        if (resultHandler == null || outcome.resultPoints == null) {
+            return;
+        }
+        if (outcome.succeeded != null) {
+            outcome.succeeded.sendToTarget();
+        } else if (frame < lastSucceededFrame) {
+            // A newer frame with a barcode follows
+            return;
+        } else {
+            Message.obtain(resultHandler, R.id.zxing_decode_failed).sendToTarget();
+        }
+        Message.obtain(resultHandler, R.id.zxing_possible_result_points, outcome.resultPoints).sendToTarget();
+    }
+}
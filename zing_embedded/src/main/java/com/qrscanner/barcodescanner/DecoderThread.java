@@ -13,6 +13,8 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.qrscanner.barcodescanner.camera.CameraInstance;
 import com.qrscanner.barcodescanner.camera.PreviewCallback;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,14 +29,27 @@ public class DecoderThread {
     private Decoder decoder;
     private Handler resultHandler;
     private Rect cropRect;
-    private boolean running = false;
+    private volatile ScanMetrics scanMetrics;
+    private volatile boolean running = false;
     private final Object LOCK = new Object();
 
     private final Handler.Callback callback = new Handler.Callback() {
         @Override
         public boolean handleMessage(Message message) {
             if (message.what == R.id.zxing_decode) {
-                decode((SourceData) message.obj);
+                SourceData sourceData = (SourceData) message.obj;
+                ScanMetrics metrics = scanMetrics;
+                if (metrics != null) {
+                    metrics.frameDequeued();
+                }
+                if (running) {
+                    decode(sourceData);
+                } else {
+                    sourceData.release();
+                    if (metrics != null) {
+                        metrics.frameDropped();
+                    }
+                }
             } else if(message.what == R.id.zxing_preview_failed) {
                 // Error already logged. Try again.
                 requestNextPreview();
@@ -67,6 +82,19 @@ public class DecoderThread {
         this.cropRect = cropRect;
     }
 
+    public ScanMetrics getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * Count the frames passed through this thread, and time their decoding.
+     *
+     * @param scanMetrics the metrics to update, or null
+     */
+    public void setScanMetrics(ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+    }
+
     /**
      * Start decoding.
      *
@@ -92,8 +120,9 @@ public class DecoderThread {
 
         synchronized (LOCK) {
             running = false;
-            handler.removeCallbacksAndMessages(null);
-            thread.quit();
+            // Let pending frames through, so that their preview buffers are released.
+            handler.removeMessages(R.id.zxing_preview_failed);
+            thread.quitSafely();
         }
     }
 
@@ -104,10 +133,19 @@ public class DecoderThread {
             //   java.lang.RuntimeException: Handler (android.os.Handler) sending message to a Handler on a dead thread
 
             // synchronize to handle cases where this is called concurrently with stop()
+            ScanMetrics metrics = scanMetrics;
             synchronized (LOCK) {
                 if (running) {
+                    if (metrics != null) {
+                        metrics.frameQueued();
+                    }
                     // Post to our thread.
                     handler.obtainMessage(R.id.zxing_decode, sourceData).sendToTarget();
+                } else {
+                    sourceData.release();
+                    if (metrics != null) {
+                        metrics.frameDropped();
+                    }
                 }
             }
         }
@@ -137,24 +175,42 @@ public class DecoderThread {
 
     private void decode(SourceData sourceData) {
         long start = System.currentTimeMillis();
-        Result rawResult = null;
+        long startNanos = System.nanoTime();
+        List<Result> rawResults = Collections.emptyList();
+        boolean skipped = false;
         if(cropRect == null) {
             cropRect = new Rect(0,0,sourceData.getDataHeight(), sourceData.getDataWidth());
         }
         sourceData.setCropRect(cropRect);
+        ScaleSelector scaleSelector = decoder.getScaleSelector();
+        if (scaleSelector != null) {
+            sourceData.setScalingFactor(scaleSelector.getScalingFactor());
+        }
         LuminanceSource source = createSource(sourceData);
 
         if(source != null) {
-            rawResult = decoder.decode(source);
+            rawResults = decoder.decodeMultiple(source);
+            skipped = decoder.isFrameSkipped();
+        }
+        Result rawResult = rawResults.isEmpty() ? null : rawResults.get(0);
+        if (scaleSelector != null) {
+            scaleSelector.update(rawResult, sourceData.getScalingFactor());
+        }
+        ScanMetrics metrics = scanMetrics;
+        if (metrics != null) {
+            if (skipped) {
+                metrics.frameSkipped();
+            } else {
+                metrics.frameDecoded(System.nanoTime() - startNanos, rawResult != null);
+            }
         }
 
         if (rawResult != null) {
             // Don't log the barcode contents for security.
             long end = System.currentTimeMillis();
-            Log.d(TAG, "Found barcode in " + (end - start) + " ms");
+            Log.d(TAG, "Found " + rawResults.size() + " barcode(s) in " + (end - start) + " ms");
             if (resultHandler != null) {
-                BarcodeResult barcodeResult = new BarcodeResult(rawResult, sourceData);
-                Message message = Message.obtain(resultHandler, R.id.zxing_decode_succeeded, barcodeResult);
+                Message message = obtainSucceededMessage(resultHandler, rawResults, sourceData);
                 Bundle bundle = new Bundle();
                 message.setData(bundle);
                 message.sendToTarget();
@@ -170,6 +226,31 @@ public class DecoderThread {
                     Message message = Message.obtain(resultHandler, R.id.zxing_possible_result_points, resultPoints);
             message.sendToTarget();
         }
+        sourceData.release();
         requestNextPreview();
     }
+
+    /**
+     * Create the message reporting the barcodes found in a frame: zxing_decode_succeeded for a
+     * single barcode, zxing_decode_multiple_succeeded for several.
+     *
+     * @param resultHandler the handler to send the message to
+     * @param rawResults the results, at least one
+     * @param sourceData the frame the results were found in
+     * @return the message, not yet sent
+     */
+    static Message obtainSucceededMessage(Handler resultHandler, List<Result> rawResults, SourceData sourceData) {
+        // The result outlives this frame's preview buffer.
+        SourceData detached = sourceData.detach();
+        if (rawResults.size() == 1) {
+            BarcodeResult barcodeResult = new BarcodeResult(rawResults.get(0), detached);
+            return Message.obtain(resultHandler, R.id.zxing_decode_succeeded, barcodeResult);
+        }
+        // All the results of the frame share its image.
+        List<BarcodeResult> barcodeResults = new ArrayList<>(rawResults.size());
+        for (Result result : rawResults) {
+            barcodeResults.add(new BarcodeResult(result, detached));
+        }
+        return Message.obtain(resultHandler, R.id.zxing_decode_multiple_succeeded, barcodeResults);
+    }
 }
@@ -1,12 +1,14 @@
 package com.qrscanner.barcodescanner;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.MultiFormatReader;
 
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * DecoderFactory that creates a MultiFormatReader with specified hints.
@@ -16,6 +18,7 @@ public class DefaultDecoderFactory implements DecoderFactory {
     private Map<DecodeHintType, ?> hints;
     private String characterSet;
     private int scanType;
+    private long decodeTimeout;
 
     public DefaultDecoderFactory() {
     }
@@ -33,6 +36,16 @@ public class DefaultDecoderFactory implements DecoderFactory {
         this.scanType = scanType;
     }
 
+    /**
+     * Bound the time spent decoding each preview frame, so that a hard frame does not hold up
+     * the following ones.
+     *
+     * @param timeout time allowed per frame in milliseconds, or 0 for no limit
+     */
+    public void setDecodeTimeout(long timeout) {
+        this.decodeTimeout = timeout;
+    }
+
     @Override
     public Decoder createDecoder(Map<DecodeHintType, ?> baseHints) {
         Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
@@ -51,19 +64,38 @@ public class DefaultDecoderFactory implements DecoderFactory {
             hints.put(DecodeHintType.CHARACTER_SET, characterSet);
         }
 
+        DecodeDeadline deadline = null;
+        if (decodeTimeout > 0) {
+            // Each decoder runs on its own thread, so it gets its own deadline.
+            deadline = new DecodeDeadline(decodeTimeout, TimeUnit.MILLISECONDS);
+            hints.put(DecodeHintType.DEADLINE, deadline);
+        }
+
         MultiFormatReader reader = new MultiFormatReader();
         reader.setHints(hints);
 
+        Decoder decoder;
         switch (scanType){
             case 0:
-                return new Decoder(reader);
+                decoder = new Decoder(reader);
+                break;
             case 1:
-                return new InvertedDecoder(reader);
+                decoder = new InvertedDecoder(reader);
+                break;
             case 2:
-                return new MixedDecoder(reader);
+                decoder = new MixedDecoder(reader);
+                break;
+            case 3:
+                decoder = new MixedDecoder(reader, true);
+                break;
+            case 4:
+                decoder = new MultiBarcodeDecoder(reader, hints);
+                break;
             default:
-                return new Decoder(reader);
+                decoder = new Decoder(reader);
 
         }
+        decoder.setDeadline(deadline);
+        return decoder;
     }
 }
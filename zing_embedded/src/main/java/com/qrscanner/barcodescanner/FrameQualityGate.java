@@ -0,0 +1,301 @@
+package com.qrscanner.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Skips frames which are too blurry, flat or badly exposed to contain a readable barcode, e.g.
+ * while autofocus is hunting or the device is moving.
+ *
+ * The quality is estimated from a few rows of the image, which takes a small fraction of the
+ * time of a decode:
+ * - contrast: the spread between dark and light pixels in the most contrasted parts of the rows,
+ *   so that a small barcode in a plain scene is not mistaken for a flat image
+ * - clipping: the fraction of pixels that are pure black or white
+ * - sharpness: the inverse of the average width of edges, in pixels. An edge blurred over 4
+ *   pixels has a sharpness of about 0.25, regardless of its contrast or how many edges there are.
+ *
+ * Frames below the thresholds are skipped. Frames which are only somewhat blurry are decoded with
+ * less effort: only the middle three quarters of the image are searched. Since the estimate may be wrong, e.g.
+ * for a barcode filling a flat image, a frame is always decoded after a few skipped ones.
+ *
+ * A gate keeps state from frame to frame, and is not thread-safe; use one per Decoder.
+ *
+ * @see Decoder#setQualityGate(FrameQualityGate)
+ */
+public class FrameQualityGate {
+    /**
+     * What to do with a frame.
+     */
+    public enum Verdict {
+        /** Decode the whole frame. */
+        DECODE,
+        /** Only search the middle three quarters of the width and height of the frame. */
+        DECODE_CENTER,
+        /** Do not decode the frame. */
+        SKIP
+    }
+
+    /** Number of rows sampled for the estimate. */
+    private static final int SAMPLED_ROWS = 32;
+
+    /** Every this many pixels of a sampled row are counted in the histogram. */
+    private static final int HISTOGRAM_STEP = 4;
+
+    /** Width of the parts of a sampled row whose luminance range is measured. */
+    private static final int SEGMENT_WIDTH = 32;
+
+    /**
+     * The contrast is the range of the segment ranking this high, so that a few noisy or
+     * specular pixels do not count as contrast.
+     */
+    private static final int CONTRAST_RANK = 4;
+
+    /** Pixels at or beyond these values are considered clipped. */
+    private static final int CLIPPED_BLACK = 4;
+    private static final int CLIPPED_WHITE = 251;
+
+    /** Differences between neighbouring pixels below this fraction of the contrast are noise. */
+    private static final int NOISE_FRACTION = 16;
+
+    private int minContrast = 24;
+    private float maxClipped = 0.5f;
+    private float minSharpness = 0.08f;
+    private float centerSharpness = 0.12f;
+    private int maxConsecutiveSkips = 5;
+
+    private int consecutiveSkips;
+    private Quality lastQuality;
+
+    /**
+     * The estimated quality of a frame.
+     */
+    public static final class Quality {
+        private final int contrast;
+        private final float clipped;
+        private final float sharpness;
+
+        Quality(int contrast, float clipped, float sharpness) {
+            this.contrast = contrast;
+            this.clipped = clipped;
+            this.sharpness = sharpness;
+        }
+
+        /**
+         *
+         * @return the difference between the darkest and lightest luminance within the most
+         *         contrasted short parts of the sampled rows, 0 - 255
+         */
+        public int getContrast() {
+            return contrast;
+        }
+
+        /**
+         *
+         * @return the fraction of pure black or white pixels, 0 - 1
+         */
+        public float getClipped() {
+            return clipped;
+        }
+
+        /**
+         *
+         * @return the inverse of the average edge width in pixels, 0 - 1
+         */
+        public float getSharpness() {
+            return sharpness;
+        }
+
+        @Override
+        public String toString() {
+            return "contrast " + contrast + ", clipped " + clipped + ", sharpness " + sharpness;
+        }
+    }
+
+    /**
+     * Estimate the quality of an image.
+     *
+     * @param source the image
+     * @return the quality
+     */
+    public static Quality measure(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int rows = Math.min(SAMPLED_ROWS, height);
+        byte[] row = new byte[width];
+        int[] histogram = new int[256];
+        int samples = 0;
+        int[] rowNumbers = new int[rows];
+        // The largest segment ranges, in decreasing order
+        int[] topRanges = new int[CONTRAST_RANK];
+
+        // First pass: the luminance distribution, and the range of each segment of the rows
+        for (int i = 0; i < rows; i++) {
+            int y = (int) ((i + 0.5f) * height / rows);
+            rowNumbers[i] = y;
+            row = source.getRow(y, row);
+            for (int x = 0; x < width; x += HISTOGRAM_STEP) {
+                histogram[row[x] & 0xff]++;
+                samples++;
+            }
+            for (int left = 0; left < width; left += SEGMENT_WIDTH) {
+                int right = Math.min(width, left + SEGMENT_WIDTH);
+                int min = 255;
+                int max = 0;
+                for (int x = left; x < right; x++) {
+                    int luminance = row[x] & 0xff;
+                    min = Math.min(min, luminance);
+                    max = Math.max(max, luminance);
+                }
+                insertRange(topRanges, max - min);
+            }
+        }
+        if (samples == 0) {
+            return new Quality(0, 0, 0);
+        }
+        int contrast = topRanges[CONTRAST_RANK - 1];
+        int clippedCount = 0;
+        for (int i = 0; i <= CLIPPED_BLACK; i++) {
+            clippedCount += histogram[i];
+        }
+        for (int i = CLIPPED_WHITE; i < 256; i++) {
+            clippedCount += histogram[i];
+        }
+
+        // Second pass: the edges. For an edge of height h blurred over w pixels, the differences
+        // between neighbouring pixels sum to h, and their squares to h * h / w.
+        int noise = Math.max(2, contrast / NOISE_FRACTION);
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (int y : rowNumbers) {
+            row = source.getRow(y, row);
+            int previous = row[0] & 0xff;
+            for (int x = 1; x < width; x++) {
+                int current = row[x] & 0xff;
+                int difference = Math.abs(current - previous);
+                if (difference > noise) {
+                    sum += difference;
+                    sumOfSquares += difference * difference;
+                }
+                previous = current;
+            }
+        }
+        float sharpness = sum > 0 && contrast > 0
+                ? Math.min(1.0f, (float) sumOfSquares / sum / contrast) : 0;
+        return new Quality(contrast, (float) clippedCount / samples, sharpness);
+    }
+
+    private static void insertRange(int[] topRanges, int range) {
+        int i = topRanges.length;
+        while (i > 0 && topRanges[i - 1] < range) {
+            if (i < topRanges.length) {
+                topRanges[i] = topRanges[i - 1];
+            }
+            i--;
+        }
+        if (i < topRanges.length) {
+            topRanges[i] = range;
+        }
+    }
+
+    /**
+     * Decide what to do with a frame.
+     *
+     * @param source the frame
+     * @return the verdict
+     */
+    public Verdict evaluate(LuminanceSource source) {
+        Quality quality = measure(source);
+        lastQuality = quality;
+        Verdict verdict;
+        if (quality.contrast < minContrast || quality.clipped > maxClipped || quality.sharpness < minSharpness) {
+            verdict = Verdict.SKIP;
+        } else if (quality.sharpness < centerSharpness) {
+            verdict = Verdict.DECODE_CENTER;
+        } else {
+            verdict = Verdict.DECODE;
+        }
+
+        if (verdict == Verdict.SKIP) {
+            if (consecutiveSkips < maxConsecutiveSkips) {
+                consecutiveSkips++;
+                return Verdict.SKIP;
+            }
+            // Give the frame a chance anyway, in case the estimate is wrong
+            verdict = Verdict.DECODE_CENTER;
+        }
+        consecutiveSkips = 0;
+        return verdict;
+    }
+
+    /**
+     *
+     * @return the quality of the last frame evaluated, or null
+     */
+    public Quality getLastQuality() {
+        return lastQuality;
+    }
+
+    public int getMinContrast() {
+        return minContrast;
+    }
+
+    /**
+     *
+     * @param minContrast frames with less contrast are skipped, 0 - 255. Defaults to 24.
+     */
+    public void setMinContrast(int minContrast) {
+        this.minContrast = minContrast;
+    }
+
+    public float getMaxClipped() {
+        return maxClipped;
+    }
+
+    /**
+     *
+     * @param maxClipped frames with a larger fraction of pure black or white pixels are skipped.
+     *                   Defaults to 0.5.
+     */
+    public void setMaxClipped(float maxClipped) {
+        this.maxClipped = maxClipped;
+    }
+
+    public float getMinSharpness() {
+        return minSharpness;
+    }
+
+    /**
+     *
+     * @param minSharpness frames with blurrier edges are skipped. Defaults to 0.08, i.e. edges
+     *                     about 12 pixels wide.
+     */
+    public void setMinSharpness(float minSharpness) {
+        this.minSharpness = minSharpness;
+    }
+
+    public float getCenterSharpness() {
+        return centerSharpness;
+    }
+
+    /**
+     *
+     * @param centerSharpness in frames with blurrier edges, only the center is searched.
+     *                        Defaults to 0.12, i.e. edges about 8 pixels wide.
+     */
+    public void setCenterSharpness(float centerSharpness) {
+        this.centerSharpness = centerSharpness;
+    }
+
+    public int getMaxConsecutiveSkips() {
+        return maxConsecutiveSkips;
+    }
+
+    /**
+     *
+     * @param maxConsecutiveSkips after skipping this many frames in a row, the next frame is
+     *                            decoded regardless of its quality. Defaults to 5.
+     */
+    public void setMaxConsecutiveSkips(int maxConsecutiveSkips) {
+        this.maxConsecutiveSkips = maxConsecutiveSkips;
+    }
+}
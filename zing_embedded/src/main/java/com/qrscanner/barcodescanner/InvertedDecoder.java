@@ -31,6 +31,6 @@ public class InvertedDecoder extends Decoder {
      */
     protected BinaryBitmap toBitmap(LuminanceSource source) {
 
-        return new BinaryBitmap(new HybridBinarizer(source.invert()));
+        return new BinaryBitmap(new HybridBinarizer(source.invert(), getBinarizerWorkspace()));
     }
 }
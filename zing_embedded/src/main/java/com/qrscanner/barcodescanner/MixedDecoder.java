@@ -1,25 +1,70 @@
 package com.qrscanner.barcodescanner;
 
+import com.google.zxing.Binarizer;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.Reader;
+import com.google.zxing.Result;
 import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.common.InvertedBinarizer;
 
 /**
- * Decoder that performs alternating scans in normal mode and inverted mode.
+ * Decoder that scans for both normal and inverted barcodes.
+ *
+ * By default, it performs alternating scans in normal mode and inverted mode, so an inverted
+ * barcode may take an extra frame to read. With both polarities per frame, each frame is
+ * binarized once, and if no barcode is found, the bits are flipped and the frame is searched
+ * again for an inverted barcode. The polarity of the last barcode found is tried first.
  */
 public class MixedDecoder extends Decoder {
-    private boolean isInverted = true;
+    private final boolean bothPolarities;
+
+    private boolean isInverted;
+
+    // Binarizer of the last bitmap returned by toBitmap(), when trying both polarities
+    private Binarizer binarizer;
 
     /**
-     * Create a new Decoder with the specified Reader.
+     * Create a new Decoder with the specified Reader, alternating normal and inverted frames.
      * <p/>
      * It is recommended to use an instance of MultiFormatReader in most cases.
      *
      * @param reader the reader
      */
     public MixedDecoder(Reader reader) {
+        this(reader, false);
+    }
+
+    /**
+     * Create a new Decoder with the specified Reader.
+     * <p/>
+     * It is recommended to use an instance of MultiFormatReader in most cases.
+     *
+     * @param reader the reader
+     * @param bothPolarities true to try both normal and inverted in every frame, false to
+     *                       alternate between frames
+     */
+    public MixedDecoder(Reader reader, boolean bothPolarities) {
         super(reader);
+        this.bothPolarities = bothPolarities;
+    }
+
+    /**
+     *
+     * @return true if both polarities are tried in every frame
+     */
+    public boolean isBothPolarities() {
+        return bothPolarities;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        if (!bothPolarities) {
+            // Alternate once per frame, starting with an inverted frame. With a BarcodeTracker,
+            // the tracked region and the whole frame are both searched in the frame's polarity.
+            isInverted = !isInverted;
+        }
+        return super.decode(source);
     }
 
     /**
@@ -31,13 +76,33 @@ public class MixedDecoder extends Decoder {
      * @return a BinaryBitmap
      */
     protected BinaryBitmap toBitmap(LuminanceSource source) {
-        if (isInverted) {
-            isInverted = false;
-            return new BinaryBitmap(new HybridBinarizer(source.invert()));
-        } else {
-            isInverted = true;
-            return new BinaryBitmap(new HybridBinarizer(source));
+        if (bothPolarities) {
+            binarizer = new HybridBinarizer(source, getBinarizerWorkspace());
+            return new BinaryBitmap(binarizer);
         }
+        LuminanceSource polarized = isInverted ? source.invert() : source;
+        return new BinaryBitmap(new HybridBinarizer(polarized, getBinarizerWorkspace()));
     }
 
+    @Override
+    protected Result decode(BinaryBitmap bitmap) {
+        Binarizer binarizer = this.binarizer;
+        this.binarizer = null;
+        if (!bothPolarities || binarizer == null) {
+            return super.decode(bitmap);
+        }
+
+        BinaryBitmap inverted = new BinaryBitmap(new InvertedBinarizer(binarizer));
+        BinaryBitmap first = isInverted ? inverted : bitmap;
+        BinaryBitmap second = isInverted ? bitmap : inverted;
+        Result result = super.decode(first);
+        if (result == null) {
+            result = super.decode(second);
+            if (result != null) {
+                // Try the polarity of this barcode first in the next frame
+                isInverted = !isInverted;
+            }
+        }
+        return result;
+    }
 }
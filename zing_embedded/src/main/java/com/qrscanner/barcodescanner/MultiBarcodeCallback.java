@@ -0,0 +1,20 @@
+package com.qrscanner.barcodescanner;
+
+import java.util.List;
+
+/**
+ * Callback that is notified of all the barcodes scanned in one frame, with a MultiBarcodeDecoder.
+ *
+ * A plain BarcodeCallback is instead notified of each of them in turn, or only of the first one
+ * when decoding a single scan.
+ */
+public interface MultiBarcodeCallback extends BarcodeCallback {
+    /**
+     * Several barcodes were successfully scanned in the same frame.
+     *
+     * A single barcode is still delivered to {@link #barcodeResult(BarcodeResult)}.
+     *
+     * @param results the results, at least two
+     */
+    void barcodeResults(List<BarcodeResult> results);
+}
@@ -0,0 +1,212 @@
+package com.qrscanner.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.MultipleBarcodeReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decoder that reads all the barcodes in a frame, e.g. the codes of a shelf tag or the 1D
+ * barcodes of a pallet label, instead of one barcode per frame.
+ *
+ * QR codes are all found with a QRCodeMultiReader, in one pass over the black matrix. The other
+ * formats are searched with a GenericMultipleBarcodeReader, which retries the parts of the frame
+ * around each barcode found. Both readers search the same BinaryBitmap, and the parts searched
+ * again are cut from its 1 bit data, so the frame is binarized once for all the searches. A barcode
+ * found twice, at overlapping locations, is only reported once.
+ *
+ * The whole frame is always searched: a BarcodeTracker and the center-only search of a
+ * FrameQualityGate are not used, as they would stop at the first barcode.
+ *
+ * Results are delivered together, to a MultiBarcodeCallback if the callback is one.
+ */
+public class MultiBarcodeDecoder extends Decoder {
+    private final Map<DecodeHintType, ?> hints;
+    private final Map<DecodeHintType, ?> genericHints;
+    private final MultipleBarcodeReader qrCodeReader;
+    private final MultipleBarcodeReader genericReader;
+
+    /**
+     * Create a new Decoder with the specified Reader, for the barcodes other than QR codes.
+     * <p/>
+     * It is recommended to use an instance of MultiFormatReader in most cases.
+     *
+     * @param reader the reader
+     * @param hints the hints of the reader, also passed to the QR code reader. May be null.
+     */
+    public MultiBarcodeDecoder(Reader reader, Map<DecodeHintType, ?> hints) {
+        super(reader);
+        this.hints = hints;
+
+        @SuppressWarnings("unchecked")
+        Collection<BarcodeFormat> formats =
+                hints == null ? null : (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        Set<BarcodeFormat> otherFormats = EnumSet.allOf(BarcodeFormat.class);
+        if (formats != null && !formats.isEmpty()) {
+            otherFormats.retainAll(formats);
+        }
+        if (otherFormats.remove(BarcodeFormat.QR_CODE)) {
+            qrCodeReader = new QRCodeMultiReader();
+        } else {
+            qrCodeReader = null;
+        }
+        if (otherFormats.isEmpty()) {
+            genericReader = null;
+            genericHints = null;
+        } else {
+            genericReader = new GenericMultipleBarcodeReader(reader);
+            // QR codes are already found by the QR code reader
+            Map<DecodeHintType, Object> otherHints = new EnumMap<>(DecodeHintType.class);
+            if (hints != null) {
+                otherHints.putAll(hints);
+            }
+            otherHints.put(DecodeHintType.POSSIBLE_FORMATS, otherFormats);
+            genericHints = otherHints;
+        }
+    }
+
+    /**
+     * Given an image source, attempt to decode the barcodes in it.
+     *
+     * @param source the image source
+     * @return the first Result, or null
+     * @see #decodeMultiple(LuminanceSource)
+     */
+    @Override
+    public Result decode(LuminanceSource source) {
+        List<Result> results = decodeMultiple(source);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        if (admit(source) == FrameQualityGate.Verdict.SKIP) {
+            return Collections.emptyList();
+        }
+        BinaryBitmap bitmap;
+        try {
+            bitmap = toBitmap(source);
+        } catch (RuntimeException e) {
+            // Decode error, try again next frame
+            return Collections.emptyList();
+        }
+        return decodeMultiple(bitmap);
+    }
+
+    /**
+     * Decode all the barcodes in a binary bitmap. A reader failing with an exception does not
+     * lose the barcodes found by the other one.
+     *
+     * Must not raise an exception.
+     *
+     * @param bitmap the binary bitmap
+     * @return the results, or an empty list
+     */
+    protected List<Result> decodeMultiple(BinaryBitmap bitmap) {
+        clearPossibleResultPoints();
+        List<Result> results = new ArrayList<>();
+        if (qrCodeReader != null) {
+            addAll(results, qrCodeReader, bitmap, hints);
+        }
+        DecodeDeadline deadline = getDeadline();
+        if (genericReader != null && (deadline == null || !deadline.isExpired())) {
+            addAll(results, genericReader, bitmap, genericHints);
+        }
+        return results;
+    }
+
+    private void addAll(List<Result> results, MultipleBarcodeReader multiReader, BinaryBitmap bitmap,
+                        Map<DecodeHintType, ?> hints) {
+        Result[] found;
+        try {
+            found = multiReader.decodeMultiple(bitmap, hints);
+        } catch (NotFoundException e) {
+            // Nothing found. The readers return the barcodes found before the deadline expired,
+            // and only give up when there are none.
+            return;
+        } catch (RuntimeException e) {
+            // Decode error of this reader. Keep the barcodes of the other one.
+            return;
+        } finally {
+            getReader().reset();
+        }
+        for (Result result : found) {
+            if (!isDuplicate(results, result)) {
+                results.add(result);
+            }
+        }
+    }
+
+    /**
+     * A barcode is found again when a region around it is searched, so results with the same
+     * contents are the same barcode if they overlap. The same contents elsewhere in the frame,
+     * e.g. on two identical labels, are reported separately.
+     */
+    private static boolean isDuplicate(List<Result> results, Result result) {
+        for (Result existing : results) {
+            if (existing.getBarcodeFormat() == result.getBarcodeFormat()
+                    && existing.getText().equals(result.getText())
+                    && overlaps(existing.getResultPoints(), result.getResultPoints())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(ResultPoint[] a, ResultPoint[] b) {
+        float[] boundsA = bounds(a);
+        float[] boundsB = bounds(b);
+        if (boundsA == null || boundsB == null) {
+            // Without a location, only the contents can tell
+            return true;
+        }
+        // The points of a 1D barcode lie on one row, so compare the centers at the scale of the
+        // larger extent rather than intersecting the boxes.
+        float extent = Math.max(Math.max(boundsA[2] - boundsA[0], boundsA[3] - boundsA[1]),
+                Math.max(boundsB[2] - boundsB[0], boundsB[3] - boundsB[1]));
+        float dx = (boundsA[0] + boundsA[2]) / 2 - (boundsB[0] + boundsB[2]) / 2;
+        float dy = (boundsA[1] + boundsA[3]) / 2 - (boundsB[1] + boundsB[3]) / 2;
+        return dx * dx + dy * dy <= extent * extent;
+    }
+
+    /**
+     * @return left, top, right and bottom of the points, or null if there are none
+     */
+    private static float[] bounds(ResultPoint[] points) {
+        float[] bounds = null;
+        if (points == null) {
+            return null;
+        }
+        for (ResultPoint point : points) {
+            if (point == null) {
+                continue;
+            }
+            if (bounds == null) {
+                bounds = new float[] {point.getX(), point.getY(), point.getX(), point.getY()};
+            } else {
+                bounds[0] = Math.min(bounds[0], point.getX());
+                bounds[1] = Math.min(bounds[1], point.getY());
+                bounds[2] = Math.max(bounds[2], point.getX());
+                bounds[3] = Math.max(bounds[3], point.getY());
+            }
+        }
+        return bounds;
+    }
+}
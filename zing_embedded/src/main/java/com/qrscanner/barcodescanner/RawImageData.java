@@ -2,6 +2,8 @@ package com.qrscanner.barcodescanner;
 
 import android.graphics.Rect;
 
+import java.util.Arrays;
+
 public class RawImageData {
     private byte[] data;
     private int width;
@@ -25,6 +27,13 @@ public class RawImageData {
         return height;
     }
 
+    /**
+     * Crop the image, and scale it down by averaging each block of scale x scale pixels.
+     *
+     * @param cropRect the crop rectangle
+     * @param scale factor to scale down by
+     * @return the cropped and scaled image
+     */
     public RawImageData cropAndScale(Rect cropRect, int scale) {
         int width = cropRect.width() / scale;
         int height = cropRect.height() / scale;
@@ -45,15 +54,27 @@ public class RawImageData {
             }
         } else {
             int inputOffset = top * this.width + cropRect.left;
+            int blockArea = scale * scale;
 
-            // Copy one cropped row at a time.
+            // Average each block of scale x scale pixels, rather than picking one of them, so that
+            // bars narrower than the block are not lost.
+            int[] sums = new int[width];
             for (int y = 0; y < height; y++) {
+                Arrays.fill(sums, 0);
+                for (int j = 0; j < scale; j++) {
+                    int xOffset = inputOffset + j * this.width;
+                    for (int x = 0; x < width; x++) {
+                        int sum = 0;
+                        for (int i = 0; i < scale; i++) {
+                            sum += this.data[xOffset + i] & 0xff;
+                        }
+                        sums[x] += sum;
+                        xOffset += scale;
+                    }
+                }
                 int outputOffset = y * width;
-                int xOffset = inputOffset;
                 for (int x = 0; x < width; x++) {
-                    matrix[outputOffset] = this.data[xOffset];
-                    xOffset += scale;
-                    outputOffset += 1;
+                    matrix[outputOffset + x] = (byte) ((sums[x] + blockArea / 2) / blockArea);
                 }
                 inputOffset += this.width * scale;
             }
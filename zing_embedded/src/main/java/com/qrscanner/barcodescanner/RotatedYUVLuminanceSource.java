@@ -0,0 +1,187 @@
+package com.qrscanner.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A LuminanceSource that reads the Y plane of a camera preview frame through a rotated, cropped
+ * and scaled view, without copying or transposing the frame first. When scaled down, each pixel
+ * is the average of a block of scale x scale pixels of the frame.
+ *
+ * The crop rectangle is specified in display orientation (i.e. after rotation), the same way
+ * as for {@link RawImageData#rotateCameraPreview(int)} followed by
+ * {@link RawImageData#cropAndScale(android.graphics.Rect, int)}. Each pixel of this source is
+ * mapped back into sensor coordinates, so the result is identical to that pipeline.
+ */
+public final class RotatedYUVLuminanceSource extends LuminanceSource {
+    private final byte[] yuvData;
+
+    /** Offset in yuvData of the top-left pixel of this source. */
+    private final int offset;
+
+    /** Offset delta in yuvData when moving one pixel to the right in this source. */
+    private final int pixelStep;
+
+    /** Offset delta in yuvData when moving one row down in this source. */
+    private final int rowStep;
+
+    /** Factor by which the frame is scaled down. */
+    private final int scale;
+
+    /**
+     *
+     * @param yuvData the preview data, with the first dataWidth * dataHeight bytes being luminance
+     * @param dataWidth width of the preview data, in sensor orientation
+     * @param dataHeight height of the preview data, in sensor orientation
+     * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270)
+     * @param left left of the crop rectangle, in display orientation
+     * @param top top of the crop rectangle, in display orientation
+     * @param cropWidth width of the crop rectangle, in display orientation
+     * @param cropHeight height of the crop rectangle, in display orientation
+     * @param scale factor to scale down by
+     */
+    public RotatedYUVLuminanceSource(byte[] yuvData,
+                                     int dataWidth,
+                                     int dataHeight,
+                                     int rotation,
+                                     int left,
+                                     int top,
+                                     int cropWidth,
+                                     int cropHeight,
+                                     int scale) {
+        super(cropWidth / scale, cropHeight / scale);
+
+        boolean rotated = rotation % 180 != 0;
+        int rotatedWidth = rotated ? dataHeight : dataWidth;
+        int rotatedHeight = rotated ? dataWidth : dataHeight;
+        if (left < 0 || top < 0 || left + cropWidth > rotatedWidth || top + cropHeight > rotatedHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        this.yuvData = yuvData;
+        this.scale = scale;
+        switch (rotation) {
+            case 90:
+                this.offset = (dataHeight - 1 - left) * dataWidth + top;
+                this.pixelStep = -scale * dataWidth;
+                this.rowStep = scale;
+                break;
+            case 180:
+                this.offset = (dataHeight - 1 - top) * dataWidth + (dataWidth - 1 - left);
+                this.pixelStep = -scale;
+                this.rowStep = -scale * dataWidth;
+                break;
+            case 270:
+                this.offset = left * dataWidth + (dataWidth - 1 - top);
+                this.pixelStep = scale * dataWidth;
+                this.rowStep = -scale;
+                break;
+            case 0:
+            default:
+                this.offset = top * dataWidth + left;
+                this.pixelStep = scale;
+                this.rowStep = scale * dataWidth;
+                break;
+        }
+    }
+
+    private RotatedYUVLuminanceSource(byte[] yuvData, int offset, int pixelStep, int rowStep, int scale,
+                                      int width, int height) {
+        super(width, height);
+        this.yuvData = yuvData;
+        this.offset = offset;
+        this.pixelStep = pixelStep;
+        this.rowStep = rowStep;
+        this.scale = scale;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        copyRow(offset + y * rowStep, row, 0, width);
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        return getMatrix(null);
+    }
+
+    @Override
+    public byte[] getMatrix(byte[] matrix) {
+        int width = getWidth();
+        int height = getHeight();
+        if (matrix == null || matrix.length < width * height) {
+            matrix = new byte[width * height];
+        }
+        int inputOffset = offset;
+        for (int y = 0; y < height; y++) {
+            copyRow(inputOffset, matrix, y * width, width);
+            inputOffset += rowStep;
+        }
+        return matrix;
+    }
+
+    private void copyRow(int inputOffset, byte[] output, int outputOffset, int width) {
+        if (scale > 1) {
+            averageRow(inputOffset, output, outputOffset, width);
+            return;
+        }
+        if (pixelStep == 1) {
+            System.arraycopy(yuvData, inputOffset, output, outputOffset, width);
+            return;
+        }
+        byte[] yuv = yuvData;
+        int step = pixelStep;
+        for (int x = 0; x < width; x++) {
+            output[outputOffset + x] = yuv[inputOffset];
+            inputOffset += step;
+        }
+    }
+
+    private void averageRow(int inputOffset, byte[] output, int outputOffset, int width) {
+        byte[] yuv = yuvData;
+        int step = pixelStep;
+        int blockPixelStep = pixelStep / scale;
+        int blockRowStep = rowStep / scale;
+        int blockArea = scale * scale;
+        for (int x = 0; x < width; x++) {
+            int sum = 0;
+            int blockRowOffset = inputOffset;
+            for (int j = 0; j < scale; j++) {
+                int blockOffset = blockRowOffset;
+                for (int i = 0; i < scale; i++) {
+                    sum += yuv[blockOffset] & 0xff;
+                    blockOffset += blockPixelStep;
+                }
+                blockRowOffset += blockRowStep;
+            }
+            output[outputOffset + x] = (byte) ((sum + blockArea / 2) / blockArea);
+            inputOffset += step;
+        }
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        if (left < 0 || top < 0 || left + width > getWidth() || top + height > getHeight()) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+        return new RotatedYUVLuminanceSource(yuvData,
+                offset + top * rowStep + left * pixelStep,
+                pixelStep,
+                rowStep,
+                scale,
+                width,
+                height);
+    }
+}
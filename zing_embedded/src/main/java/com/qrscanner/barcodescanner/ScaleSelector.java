@@ -0,0 +1,199 @@
+package com.qrscanner.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+/**
+ * Chooses the factor by which to scale down each frame before decoding, from the module size of
+ * the last barcode found.
+ *
+ * Large barcodes close to the camera are decoded from a frame scaled down by 2 or 4, which is
+ * much faster, as long as their modules stay at least {@link #setMinModuleSize(float) a few
+ * pixels} wide. Frames are decoded at full resolution until a barcode is found, and again once
+ * no barcode has been found for a few frames, so that small or distant barcodes are not missed.
+ *
+ * The module size is estimated for QR codes, EAN / UPC, Code 128 and ITF barcodes. Other
+ * barcodes keep the current factor.
+ *
+ * A selector keeps state from frame to frame, and is not thread-safe; use one per Decoder.
+ *
+ * @see Decoder#setScaleSelector(ScaleSelector)
+ */
+public class ScaleSelector {
+    /** A larger factor is only kept while the module size is at least this fraction of the minimum. */
+    private static final float HYSTERESIS = 0.75f;
+
+    private float minModuleSize = 3.0f;
+    private int maxScalingFactor = 4;
+    private int maxMissedFrames = 3;
+
+    private int scalingFactor = 1;
+    private int missedFrames;
+
+    /**
+     *
+     * @return the factor by which to scale down the next frame
+     */
+    public int getScalingFactor() {
+        return scalingFactor;
+    }
+
+    /**
+     * Update the factor from the result of a frame.
+     *
+     * @param result the result, or null if no barcode was found
+     * @param frameScalingFactor the factor by which the frame was scaled down
+     */
+    public void update(Result result, int frameScalingFactor) {
+        if (result == null) {
+            if (++missedFrames >= maxMissedFrames) {
+                scalingFactor = 1;
+            }
+            return;
+        }
+        missedFrames = 0;
+
+        float moduleSize = estimateModuleSize(result);
+        if (moduleSize <= 0) {
+            return;
+        }
+        // In pixels of the full resolution frame
+        moduleSize *= frameScalingFactor;
+
+        int factor = 1;
+        while (factor * 2 <= maxScalingFactor && moduleSize / (factor * 2) >= minModuleSize) {
+            factor *= 2;
+        }
+        if (factor < scalingFactor && moduleSize / scalingFactor >= minModuleSize * HYSTERESIS) {
+            // Avoid switching back and forth on small changes of the estimate
+            factor = scalingFactor;
+        }
+        scalingFactor = Math.min(factor, maxScalingFactor);
+    }
+
+    /**
+     * Decode frames at full resolution again.
+     */
+    public void reset() {
+        scalingFactor = 1;
+        missedFrames = 0;
+    }
+
+    /**
+     * Estimate the size of a module of a barcode from its result points.
+     *
+     * For 1D barcodes the estimate is the narrowest the modules may be, given the decoded content.
+     *
+     * @param result the result
+     * @return the module size in pixels of the decoded image, or -1 if it cannot be estimated
+     */
+    public static float estimateModuleSize(Result result) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null || points.length < 2 || points[0] == null || points[1] == null) {
+            return -1;
+        }
+        BarcodeFormat format = result.getBarcodeFormat();
+        byte[] rawBytes = result.getRawBytes();
+        float modules;
+        switch (format) {
+            case QR_CODE:
+                return estimateQRCodeModuleSize(result, points);
+            case EAN_13:
+            case UPC_A:
+                // Between the centers of the guard patterns
+                modules = 92;
+                break;
+            case EAN_8:
+                modules = 64;
+                break;
+            case UPC_E:
+                modules = 46.5f;
+                break;
+            case CODE_128:
+                if (rawBytes == null) {
+                    return -1;
+                }
+                // The raw bytes are the start, data, check and stop codes, of 11 modules each except
+                // the stop code of 13. The points are the centers of the start code and of the first
+                // 11 modules of the stop code, so one code less than there are apart.
+                modules = (rawBytes.length - 1) * 11;
+                break;
+            case ITF:
+                // Between the start and end patterns, at most 9 modules per digit
+                modules = result.getText().length() * 9;
+                break;
+            default:
+                return -1;
+        }
+        return modules > 0 ? ResultPoint.distance(points[0], points[1]) / modules : -1;
+    }
+
+    private static float estimateQRCodeModuleSize(Result result, ResultPoint[] points) {
+        // The result points are the centers of the bottom left, top left and top right finder
+        // patterns, which are 7 modules less than the dimension apart. The version follows from
+        // the number of data codewords at the error correction level.
+        Object ecLevel = result.getResultMetadata() != null
+                ? result.getResultMetadata().get(ResultMetadataType.ERROR_CORRECTION_LEVEL) : null;
+        byte[] rawBytes = result.getRawBytes();
+        if (points.length < 3 || points[2] == null || ecLevel == null || rawBytes == null) {
+            return -1;
+        }
+        ErrorCorrectionLevel level;
+        try {
+            level = ErrorCorrectionLevel.valueOf(ecLevel.toString());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        for (int number = 1; number <= 40; number++) {
+            Version version = Version.getVersionForNumber(number);
+            int dataCodewords = version.getTotalCodewords() - version.getECBlocksForLevel(level).getTotalECCodewords();
+            if (dataCodewords == rawBytes.length) {
+                int modules = version.getDimensionForVersion() - 7;
+                float distance = (ResultPoint.distance(points[0], points[1]) + ResultPoint.distance(points[1], points[2])) / 2;
+                return distance / modules;
+            }
+        }
+        return -1;
+    }
+
+    public float getMinModuleSize() {
+        return minModuleSize;
+    }
+
+    /**
+     *
+     * @param minModuleSize the smallest module size after scaling down, in pixels. Defaults to 3.
+     */
+    public void setMinModuleSize(float minModuleSize) {
+        this.minModuleSize = minModuleSize;
+    }
+
+    public int getMaxScalingFactor() {
+        return maxScalingFactor;
+    }
+
+    /**
+     *
+     * @param maxScalingFactor the largest factor to scale down by. Defaults to 4.
+     */
+    public void setMaxScalingFactor(int maxScalingFactor) {
+        this.maxScalingFactor = maxScalingFactor;
+    }
+
+    public int getMaxMissedFrames() {
+        return maxMissedFrames;
+    }
+
+    /**
+     *
+     * @param maxMissedFrames after this many frames in a row without a barcode, frames are decoded
+     *                        at full resolution again. Defaults to 3.
+     */
+    public void setMaxMissedFrames(int maxMissedFrames) {
+        this.maxMissedFrames = maxMissedFrames;
+    }
+}
@@ -0,0 +1,327 @@
+package com.qrscanner.barcodescanner;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the scanning pipeline, from camera frames to decode results.
+ *
+ * The counters are updated without locking by the camera and decoder threads, and may be read
+ * at any time with {@link #getSnapshot()}. They are reset whenever the scanner is resumed.
+ *
+ * With preview buffers enabled (see CameraSettings#setPreviewBufferCount), every frame of the
+ * camera is counted. Otherwise the camera only returns the frames requested by the decoder, so
+ * the camera frame rate equals the delivery rate.
+ *
+ * @see BarcodeView#getScanMetrics()
+ */
+public class ScanMetrics {
+    /**
+     * Receives snapshots of the metrics at regular intervals.
+     *
+     * @see BarcodeView#setScanMetricsListener(Listener, long)
+     */
+    public interface Listener {
+        /**
+         * Called on the UI thread.
+         *
+         * @param snapshot the current metrics
+         */
+        void onScanMetrics(Snapshot snapshot);
+    }
+
+    /** Decode latencies are counted in buckets of one millisecond, up to this latency. */
+    private static final int MAX_LATENCY_MS = 1000;
+
+    private final AtomicLong startNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong cameraFrames = new AtomicLong();
+    private final AtomicLong deliveredFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private final AtomicLong decodedFrames = new AtomicLong();
+    private final AtomicLong foundFrames = new AtomicLong();
+    private final AtomicLong totalDecodeNanos = new AtomicLong();
+    private final AtomicLong firstResultNanos = new AtomicLong(-1);
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    // The last bucket counts all longer decodes
+    private final AtomicIntegerArray latencyHistogram = new AtomicIntegerArray(MAX_LATENCY_MS + 2);
+
+    /**
+     * Reset all counters, and start timing the first result.
+     *
+     * The queue depth is kept, since frames may still be queued.
+     */
+    public void reset() {
+        cameraFrames.set(0);
+        deliveredFrames.set(0);
+        droppedFrames.set(0);
+        skippedFrames.set(0);
+        decodedFrames.set(0);
+        foundFrames.set(0);
+        totalDecodeNanos.set(0);
+        firstResultNanos.set(-1);
+        maxQueueDepth.set(queueDepth.get());
+        for (int i = 0; i < latencyHistogram.length(); i++) {
+            latencyHistogram.set(i, 0);
+        }
+        startNanos.set(System.nanoTime());
+    }
+
+    /**
+     * A frame was received from the camera.
+     */
+    public void cameraFrame() {
+        cameraFrames.incrementAndGet();
+    }
+
+    /**
+     * A frame was released without being decoded.
+     */
+    public void frameDropped() {
+        droppedFrames.incrementAndGet();
+    }
+
+    /**
+     * A frame was queued for decoding.
+     */
+    public void frameQueued() {
+        deliveredFrames.incrementAndGet();
+        int depth = queueDepth.incrementAndGet();
+        int max;
+        while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+            // Retry
+        }
+    }
+
+    /**
+     * A frame was taken from the queue, to be decoded or dropped.
+     */
+    public void frameDequeued() {
+        queueDepth.decrementAndGet();
+    }
+
+    /**
+     * A frame was taken by the decoder, but skipped by its SceneChangeDetector or
+     * FrameQualityGate without decoding it.
+     */
+    public void frameSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    /**
+     * A frame was decoded.
+     *
+     * @param decodeNanos time spent decoding the frame, in nanoseconds
+     * @param found true if a barcode was found
+     */
+    public void frameDecoded(long decodeNanos, boolean found) {
+        decodedFrames.incrementAndGet();
+        totalDecodeNanos.addAndGet(decodeNanos);
+        latencyHistogram.incrementAndGet((int) Math.min(decodeNanos / 1000000, MAX_LATENCY_MS + 1));
+        if (found) {
+            foundFrames.incrementAndGet();
+            firstResultNanos.compareAndSet(-1, System.nanoTime() - startNanos.get());
+        }
+    }
+
+    /**
+     *
+     * @return the current values of the counters
+     */
+    public Snapshot getSnapshot() {
+        int[] histogram = new int[latencyHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = latencyHistogram.get(i);
+        }
+        return new Snapshot(System.nanoTime() - startNanos.get(), cameraFrames.get(),
+                deliveredFrames.get(), droppedFrames.get(), skippedFrames.get(), decodedFrames.get(),
+                foundFrames.get(),
+                totalDecodeNanos.get(), firstResultNanos.get(), queueDepth.get(), maxQueueDepth.get(),
+                histogram);
+    }
+
+    /**
+     * The metrics at one point in time, counted since the scanner was resumed.
+     *
+     * Since the counters are read one by one while frames are processed, they may be off by a
+     * frame relative to each other.
+     */
+    public static final class Snapshot {
+        private final long elapsedNanos;
+        private final long cameraFrames;
+        private final long deliveredFrames;
+        private final long droppedFrames;
+        private final long skippedFrames;
+        private final long decodedFrames;
+        private final long foundFrames;
+        private final long totalDecodeNanos;
+        private final long firstResultNanos;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final int[] latencyHistogram;
+
+        Snapshot(long elapsedNanos, long cameraFrames, long deliveredFrames, long droppedFrames,
+                 long skippedFrames, long decodedFrames, long foundFrames, long totalDecodeNanos,
+                 long firstResultNanos, int queueDepth, int maxQueueDepth, int[] latencyHistogram) {
+            this.elapsedNanos = elapsedNanos;
+            this.cameraFrames = cameraFrames;
+            this.deliveredFrames = deliveredFrames;
+            this.droppedFrames = droppedFrames;
+            this.skippedFrames = skippedFrames;
+            this.decodedFrames = decodedFrames;
+            this.foundFrames = foundFrames;
+            this.totalDecodeNanos = totalDecodeNanos;
+            this.firstResultNanos = firstResultNanos;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        /**
+         *
+         * @return time since the scanner was resumed, in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedNanos / 1000000;
+        }
+
+        public long getCameraFrames() {
+            return cameraFrames;
+        }
+
+        /**
+         *
+         * @return the number of frames passed on to the decoder
+         */
+        public long getDeliveredFrames() {
+            return deliveredFrames;
+        }
+
+        /**
+         *
+         * @return the number of frames released without decoding, by the camera or the decoder
+         */
+        public long getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        /**
+         *
+         * @return the number of frames skipped by the decoder without decoding them, as unchanged
+         *         or of too low quality. They are not counted as decoded.
+         */
+        public long getSkippedFrames() {
+            return skippedFrames;
+        }
+
+        public long getDecodedFrames() {
+            return decodedFrames;
+        }
+
+        /**
+         *
+         * @return the number of decoded frames in which a barcode was found
+         */
+        public long getFoundFrames() {
+            return foundFrames;
+        }
+
+        /**
+         *
+         * @return the average number of camera frames per second
+         */
+        public float getCameraFps() {
+            return elapsedNanos > 0 ? cameraFrames * 1e9f / elapsedNanos : 0;
+        }
+
+        /**
+         *
+         * @return the average number of decoded frames per second
+         */
+        public float getDecodeFps() {
+            return elapsedNanos > 0 ? decodedFrames * 1e9f / elapsedNanos : 0;
+        }
+
+        /**
+         *
+         * @return the fraction of delivered frames that were decoded, or 0 if none were delivered
+         */
+        public float getDecodedRatio() {
+            return deliveredFrames > 0 ? (float) decodedFrames / deliveredFrames : 0;
+        }
+
+        /**
+         *
+         * @return the average time to decode a frame, in milliseconds
+         */
+        public float getMeanLatencyMillis() {
+            return decodedFrames > 0 ? totalDecodeNanos / 1e6f / decodedFrames : 0;
+        }
+
+        /**
+         * Estimate a percentile of the decode latency, from a histogram with buckets of one
+         * millisecond.
+         *
+         * @param fraction the percentile, e.g. 0.9 for the 90th percentile
+         * @return an upper bound of the percentile in milliseconds, or -1 if no frame was decoded.
+         *         Latencies above one second are reported as one second more than that.
+         */
+        public int getLatencyPercentileMillis(float fraction) {
+            long total = 0;
+            for (int count : latencyHistogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return -1;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * fraction));
+            long seen = 0;
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                seen += latencyHistogram[i];
+                if (seen >= rank) {
+                    return i + 1;
+                }
+            }
+            return latencyHistogram.length;
+        }
+
+        /**
+         *
+         * @return the time from resuming the scanner to the first barcode found, in milliseconds,
+         *         or -1 if none was found yet
+         */
+        public long getTimeToFirstResultMillis() {
+            return firstResultNanos < 0 ? -1 : firstResultNanos / 1000000;
+        }
+
+        /**
+         *
+         * @return the number of frames waiting to be decoded
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         *
+         * @return the largest number of frames that were waiting to be decoded at once
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "camera %.1f fps, decode %.1f fps, %d/%d delivered frames decoded, %d skipped, %d dropped, " +
+                            "latency mean %.1f ms p50 %d ms p90 %d ms p99 %d ms, first result %d ms, queue %d (max %d)",
+                    getCameraFps(), getDecodeFps(), decodedFrames, deliveredFrames, skippedFrames, droppedFrames,
+                    getMeanLatencyMillis(), getLatencyPercentileMillis(0.5f),
+                    getLatencyPercentileMillis(0.9f), getLatencyPercentileMillis(0.99f),
+                    getTimeToFirstResultMillis(), queueDepth, maxQueueDepth);
+        }
+    }
+}
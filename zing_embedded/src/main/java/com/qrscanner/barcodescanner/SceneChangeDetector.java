@@ -0,0 +1,169 @@
+package com.qrscanner.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+import java.util.Arrays;
+
+/**
+ * Suppresses decoding while the scene does not change, e.g. while a kiosk scanner faces an empty
+ * counter, or keeps looking at a barcode it already read.
+ *
+ * Each frame is reduced to a coarse grid of average luminances. A frame is decoded if enough
+ * cells of the grid differ from the last decoded frame. A uniform change of brightness, e.g. from
+ * auto exposure, does not count. After a change, frames keep being decoded for a short while, to
+ * give autofocus and motion blur time to settle. Regardless of changes, a frame is decoded at
+ * least once per {@link #setMaxSkipMillis(long) interval}.
+ *
+ * A detector keeps state from frame to frame, and is not thread-safe; use one per Decoder.
+ *
+ * @see Decoder#setChangeDetector(SceneChangeDetector)
+ */
+public class SceneChangeDetector {
+    private static final int GRID_WIDTH = 32;
+    private static final int GRID_HEIGHT = 24;
+
+    /** Luminance samples per cell, in each direction. */
+    private static final int CELL_SAMPLES = 3;
+
+    /** A cell differing by more than this, in luminance levels, has changed. */
+    private static final int CELL_THRESHOLD = 12;
+
+    private float minChangedFraction = 0.02f;
+    private int settleFrames = 5;
+    private long maxSkipMillis = 1000;
+
+    private int[] reference;
+    private int[] current = new int[GRID_WIDTH * GRID_HEIGHT];
+    private int referenceWidth;
+    private int referenceHeight;
+    private int framesSinceChange;
+    private long lastDecodeNanos;
+    private byte[] row;
+
+    /**
+     * Decide whether to decode a frame.
+     *
+     * If so, the frame becomes the reference for the next frames.
+     *
+     * @param source the frame
+     * @return true to decode the frame, false to skip it
+     */
+    public boolean shouldDecode(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width < GRID_WIDTH || height < GRID_HEIGHT) {
+            return true;
+        }
+        sample(source, current);
+
+        long now = System.nanoTime();
+        boolean decode;
+        if (reference == null || width != referenceWidth || height != referenceHeight) {
+            decode = true;
+            framesSinceChange = 0;
+        } else if (hasChanged(reference, current)) {
+            decode = true;
+            framesSinceChange = 0;
+        } else {
+            framesSinceChange++;
+            decode = framesSinceChange <= settleFrames || now - lastDecodeNanos >= maxSkipMillis * 1000000;
+        }
+
+        if (decode) {
+            int[] swap = reference != null ? reference : new int[current.length];
+            reference = current;
+            current = swap;
+            referenceWidth = width;
+            referenceHeight = height;
+            lastDecodeNanos = now;
+        }
+        return decode;
+    }
+
+    /**
+     * Forget the reference frame, so that the next frame is decoded.
+     */
+    public void reset() {
+        reference = null;
+        framesSinceChange = 0;
+    }
+
+    private void sample(LuminanceSource source, int[] grid) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        Arrays.fill(grid, 0);
+        int rows = GRID_HEIGHT * CELL_SAMPLES;
+        int columns = GRID_WIDTH * CELL_SAMPLES;
+        for (int i = 0; i < rows; i++) {
+            int y = (int) ((i + 0.5f) * height / rows);
+            row = source.getRow(y, row);
+            int cellRow = (i / CELL_SAMPLES) * GRID_WIDTH;
+            for (int j = 0; j < columns; j++) {
+                int x = (int) ((j + 0.5f) * width / columns);
+                grid[cellRow + j / CELL_SAMPLES] += row[x] & 0xff;
+            }
+        }
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] /= CELL_SAMPLES * CELL_SAMPLES;
+        }
+    }
+
+    private boolean hasChanged(int[] previous, int[] next) {
+        // Ignore a uniform change of brightness
+        int shift = 0;
+        for (int i = 0; i < next.length; i++) {
+            shift += next[i] - previous[i];
+        }
+        shift /= next.length;
+
+        int maxChanged = (int) (next.length * minChangedFraction);
+        int changed = 0;
+        for (int i = 0; i < next.length; i++) {
+            if (Math.abs(next[i] - previous[i] - shift) > CELL_THRESHOLD && ++changed > maxChanged) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public float getMinChangedFraction() {
+        return minChangedFraction;
+    }
+
+    /**
+     *
+     * @param minChangedFraction the fraction of the image that must change for a frame to be
+     *                           decoded. Defaults to 0.02.
+     */
+    public void setMinChangedFraction(float minChangedFraction) {
+        this.minChangedFraction = minChangedFraction;
+    }
+
+    public int getSettleFrames() {
+        return settleFrames;
+    }
+
+    /**
+     *
+     * @param settleFrames number of frames decoded after the last change. Defaults to 5.
+     */
+    public void setSettleFrames(int settleFrames) {
+        this.settleFrames = settleFrames;
+    }
+
+    public long getMaxSkipMillis() {
+        return maxSkipMillis;
+    }
+
+    /**
+     *
+     * @param maxSkipMillis the longest time without decoding a frame, in milliseconds. Defaults
+     *                      to 1000.
+     */
+    public void setMaxSkipMillis(long maxSkipMillis) {
+        this.maxSkipMillis = maxSkipMillis;
+    }
+}
@@ -1,15 +1,11 @@
 package com.qrscanner.barcodescanner;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
 import android.graphics.Rect;
-import android.graphics.YuvImage;
 
-import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.ResultPoint;
-
-import java.io.ByteArrayOutputStream;
+import com.qrscanner.barcodescanner.camera.PreviewBufferPool;
 
 /**
  * Raw preview data from a camera.
@@ -27,12 +23,16 @@ public class SourceData {
     private Rect cropRect;
 
     /**
-     * Factor by which to scale down before decoding.
+     * Factor by which to scale down before decoding. Each block of scalingFactor x scalingFactor
+     * pixels is averaged into one.
      */
     private int scalingFactor = 1;
 
     private boolean previewMirrored;
 
+    /** Pool the data buffer belongs to, or null if the buffer is not reused. */
+    private PreviewBufferPool bufferPool;
+
     /**
      *
      * @param data the image data
@@ -71,6 +71,41 @@ public class SourceData {
         this.previewMirrored = previewMirrored;
     }
 
+    public void setBufferPool(PreviewBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Return the data buffer to the camera, if it came from a {@link PreviewBufferPool}.
+     *
+     * The data must not be used after calling this, since the camera will overwrite it with a
+     * new preview frame.
+     */
+    public void release() {
+        PreviewBufferPool pool = bufferPool;
+        if (pool != null) {
+            bufferPool = null;
+            pool.recycle(data.getData());
+        }
+    }
+
+    /**
+     * Get a SourceData that remains valid after {@link #release()}.
+     *
+     * @return this instance if the data buffer is not reused, otherwise a copy with its own buffer
+     */
+    public SourceData detach() {
+        if (bufferPool == null) {
+            return this;
+        }
+        byte[] buffer = data.getData();
+        SourceData copy = new SourceData(buffer.clone(), data.getWidth(), data.getHeight(), imageFormat, rotation);
+        copy.setCropRect(cropRect);
+        copy.setScalingFactor(scalingFactor);
+        copy.setPreviewMirrored(previewMirrored);
+        return copy;
+    }
+
     public int getScalingFactor() {
         return scalingFactor;
     }
@@ -120,12 +155,17 @@ public class SourceData {
         return imageFormat;
     }
 
-    public PlanarYUVLuminanceSource createSource() {
-        RawImageData rotated = this.data.rotateCameraPreview(rotation);
-        RawImageData scaled = rotated.cropAndScale(this.cropRect, this.scalingFactor);
-
-        // not the preview for decoding.
-        return new PlanarYUVLuminanceSource(scaled.getData(), scaled.getWidth(), scaled.getHeight(), 0, 0, scaled.getWidth(), scaled.getHeight(), false);
+    /**
+     * Create a LuminanceSource for decoding, in display orientation, cropped to the crop rectangle
+     * and scaled down by the scaling factor.
+     *
+     * The source reads directly from the preview data; the frame is not rotated or copied first.
+     *
+     * @return the LuminanceSource
+     */
+    public LuminanceSource createSource() {
+        return new RotatedYUVLuminanceSource(data.getData(), data.getWidth(), data.getHeight(), rotation,
+                cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), scalingFactor);
     }
 
     /**
@@ -140,14 +180,38 @@ public class SourceData {
     /**
      * Return the source bitmap (cropped; in display orientation).
      *
-     * @param scaleFactor factor to scale down by. Must be a power of 2.
+     * @param scaleFactor factor to scale down by
      * @return the bitmap
      */
     public Bitmap getBitmap(int scaleFactor) {
         return getBitmap(cropRect, scaleFactor);
     }
 
+    /**
+     * Return the source bitmap (cropped; in display orientation).
+     *
+     * This allocates a new converter and pixel buffer; to convert frames repeatedly, keep a
+     * converter and use {@link #getBitmap(Rect, int, YuvToArgbConverter)}.
+     *
+     * @param cropRect the crop rectangle, or null for the whole frame
+     * @param scaleFactor factor to scale down by
+     * @return the bitmap
+     */
     public Bitmap getBitmap(Rect cropRect, int scaleFactor) {
+        return getBitmap(cropRect, scaleFactor, new YuvToArgbConverter());
+    }
+
+    /**
+     * Return the source bitmap (cropped; in display orientation).
+     *
+     * The frame is converted to pixels directly, cropping, rotating and scaling down in one pass.
+     *
+     * @param cropRect the crop rectangle, or null for the whole frame
+     * @param scaleFactor factor to scale down by
+     * @param converter the converter, whose pixel buffer is reused
+     * @return the bitmap
+     */
+    public Bitmap getBitmap(Rect cropRect, int scaleFactor, YuvToArgbConverter converter) {
         if (cropRect == null) {
             cropRect = new Rect(0, 0, data.getWidth(), data.getHeight());
         } else if(isRotated()) {
@@ -155,24 +219,10 @@ public class SourceData {
             cropRect = new Rect(cropRect.top, cropRect.left, cropRect.bottom, cropRect.right);
         }
 
-        // TODO: there should be a way to do this without JPEG compression / decompression cycle.
-        YuvImage img = new YuvImage(data.getData(), imageFormat, data.getWidth(), data.getHeight(), null);
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        img.compressToJpeg(cropRect, 90, buffer);
-        byte[] jpegData = buffer.toByteArray();
-
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inSampleSize = scaleFactor;
-        Bitmap bitmap = BitmapFactory.decodeByteArray(jpegData, 0, jpegData.length, options);
-
-        // Rotate if required
-        if (rotation != 0) {
-            Matrix imageMatrix = new Matrix();
-            imageMatrix.postRotate(rotation);
-            bitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), imageMatrix, false);
-        }
-
-        return bitmap;
+        int[] pixels = converter.convert(data.getData(), data.getWidth(), data.getHeight(), imageFormat, rotation,
+                cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), scaleFactor);
+        int width = converter.getWidth();
+        return Bitmap.createBitmap(pixels, 0, width, width, converter.getHeight(), Bitmap.Config.ARGB_8888);
     }
 
 }
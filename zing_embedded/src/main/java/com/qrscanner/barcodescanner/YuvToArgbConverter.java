@@ -0,0 +1,165 @@
+package com.qrscanner.barcodescanner;
+
+import android.graphics.ImageFormat;
+
+/**
+ * Converts camera preview data to ARGB pixels, cropping, rotating and scaling down in the same
+ * pass.
+ *
+ * This replaces compressing the frame to JPEG and decoding it again, which takes tens of
+ * milliseconds for a preview frame. Colors are converted with the BT.601 coefficients for video
+ * range YUV, as used by camera previews. When scaled down, the pixel at the center of each block
+ * is taken.
+ *
+ * The pixel buffer is reused from conversion to conversion, so a converter is not thread-safe.
+ */
+public class YuvToArgbConverter {
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    /**
+     * Convert part of a frame.
+     *
+     * @param data the preview data
+     * @param dataWidth width of the data
+     * @param dataHeight height of the data
+     * @param imageFormat ImageFormat.NV21 or ImageFormat.YUY2
+     * @param rotation rotation to apply clockwise, in degrees (0, 90, 180 or 270)
+     * @param left left of the crop rectangle, in sensor orientation
+     * @param top top of the crop rectangle, in sensor orientation
+     * @param cropWidth width of the crop rectangle, in sensor orientation
+     * @param cropHeight height of the crop rectangle, in sensor orientation
+     * @param scale factor to scale down by
+     * @return the pixels, getWidth() x getHeight() of them, in rows. The array may be larger, and
+     *         is overwritten by the next conversion.
+     */
+    public int[] convert(byte[] data, int dataWidth, int dataHeight, int imageFormat, int rotation,
+                         int left, int top, int cropWidth, int cropHeight, int scale) {
+        if (imageFormat != ImageFormat.NV21 && imageFormat != ImageFormat.YUY2) {
+            throw new IllegalArgumentException("Unsupported image format: " + imageFormat);
+        }
+        if (left < 0 || top < 0 || left + cropWidth > dataWidth || top + cropHeight > dataHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        int scaledWidth = cropWidth / scale;
+        int scaledHeight = cropHeight / scale;
+        boolean rotated = rotation % 180 != 0;
+        width = rotated ? scaledHeight : scaledWidth;
+        height = rotated ? scaledWidth : scaledHeight;
+        if (pixels == null || pixels.length < width * height) {
+            pixels = new int[width * height];
+        }
+
+        // Position in the data of the first output pixel, and the steps when moving one pixel to
+        // the right or one row down in the output.
+        int half = scale / 2;
+        int x0 = left + half;
+        int y0 = top + half;
+        int x1 = left + (scaledWidth - 1) * scale + half;
+        int y1 = top + (scaledHeight - 1) * scale + half;
+        int startX, startY, pixelStepX, pixelStepY, rowStepX, rowStepY;
+        switch (rotation) {
+            case 90:
+                startX = x0;
+                startY = y1;
+                pixelStepX = 0;
+                pixelStepY = -scale;
+                rowStepX = scale;
+                rowStepY = 0;
+                break;
+            case 180:
+                startX = x1;
+                startY = y1;
+                pixelStepX = -scale;
+                pixelStepY = 0;
+                rowStepX = 0;
+                rowStepY = -scale;
+                break;
+            case 270:
+                startX = x1;
+                startY = y0;
+                pixelStepX = 0;
+                pixelStepY = scale;
+                rowStepX = -scale;
+                rowStepY = 0;
+                break;
+            case 0:
+            default:
+                startX = x0;
+                startY = y0;
+                pixelStepX = scale;
+                pixelStepY = 0;
+                rowStepX = 0;
+                rowStepY = scale;
+                break;
+        }
+
+        boolean nv21 = imageFormat == ImageFormat.NV21;
+        int frameSize = dataWidth * dataHeight;
+        int[] output = pixels;
+        int outputOffset = 0;
+        for (int y = 0; y < height; y++) {
+            int dataX = startX + y * rowStepX;
+            int dataY = startY + y * rowStepY;
+            for (int x = 0; x < width; x++) {
+                int luminance;
+                int u;
+                int v;
+                if (nv21) {
+                    luminance = data[dataY * dataWidth + dataX] & 0xff;
+                    // Interleaved V and U samples, one pair per 2x2 pixels
+                    int chroma = frameSize + (dataY >> 1) * dataWidth + (dataX & ~1);
+                    v = data[chroma] & 0xff;
+                    u = data[chroma + 1] & 0xff;
+                } else {
+                    // Y0 U Y1 V, one group per 2x1 pixels
+                    int group = dataY * dataWidth * 2 + (dataX & ~1) * 2;
+                    luminance = data[group + (dataX & 1) * 2] & 0xff;
+                    u = data[group + 1] & 0xff;
+                    v = data[group + 3] & 0xff;
+                }
+                output[outputOffset++] = toArgb(luminance, u, v);
+                dataX += pixelStepX;
+                dataY += pixelStepY;
+            }
+        }
+        return output;
+    }
+
+    private static int toArgb(int luminance, int u, int v) {
+        int c = Math.max(0, luminance - 16) * 298;
+        int d = u - 128;
+        int e = v - 128;
+        int r = (c + 409 * e + 128) >> 8;
+        int g = (c - 100 * d - 208 * e + 128) >> 8;
+        int b = (c + 516 * d + 128) >> 8;
+        return 0xff000000 | (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    /**
+     * Clamp to 0 - 255 without branches, which would be mispredicted on noisy images.
+     */
+    private static int clamp(int value) {
+        value &= ~(value >> 31);
+        value |= (255 - value) >> 31;
+        return value & 0xff;
+    }
+
+    /**
+     *
+     * @return width of the last conversion, in output orientation
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     *
+     * @return height of the last conversion, in output orientation
+     */
+    public int getHeight() {
+        return height;
+    }
+}
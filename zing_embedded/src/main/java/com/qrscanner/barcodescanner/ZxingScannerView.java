@@ -282,7 +282,7 @@ public class ZxingScannerView extends FrameLayout implements AnimatedViewFinder.
      * @see BarcodeView#decodeSingle(BarcodeCallback)
      */
     public void decodeSingle(BarcodeCallback callback) {
-        wrappedCallback = new WrappedCallback(callback);
+        wrappedCallback = wrap(callback);
         barcodeView.decodeSingle(wrappedCallback);
     }
 
@@ -290,7 +290,7 @@ public class ZxingScannerView extends FrameLayout implements AnimatedViewFinder.
      * @see BarcodeView#decodeContinuous(BarcodeCallback)
      */
     public void decodeContinuous(BarcodeCallback callback) {
-        wrappedCallback = new WrappedCallback(callback);
+        wrappedCallback = wrap(callback);
         barcodeView.decodeContinuous(wrappedCallback);
     }
 
@@ -361,6 +361,13 @@ public class ZxingScannerView extends FrameLayout implements AnimatedViewFinder.
         void onTorchOff();
     }
 
+    private WrappedCallback wrap(BarcodeCallback callback) {
+        if (callback instanceof MultiBarcodeCallback) {
+            return new WrappedMultiCallback((MultiBarcodeCallback) callback);
+        }
+        return new WrappedCallback(callback);
+    }
+
     private class WrappedCallback implements BarcodeCallback {
         private BarcodeCallback delegate;
 
@@ -381,5 +388,18 @@ public class ZxingScannerView extends FrameLayout implements AnimatedViewFinder.
             delegate.possibleResultPoints(resultPoints);
         }
     }
-}
 
+    private class WrappedMultiCallback extends WrappedCallback implements MultiBarcodeCallback {
+        private MultiBarcodeCallback delegate;
+
+        public WrappedMultiCallback(MultiBarcodeCallback delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void barcodeResults(List<BarcodeResult> results) {
+            delegate.barcodeResults(results);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import android.os.Handler;
 import android.util.Log;
 import android.view.SurfaceHolder;
 
+import com.qrscanner.barcodescanner.ScanMetrics;
 import com.qrscanner.barcodescanner.Size;
 import com.qrscanner.barcodescanner.Util;
 import com.qrscanner.zing_embedded.R;
@@ -66,6 +67,15 @@ public class CameraInstance {
         return displayConfiguration;
     }
 
+    /**
+     * Count the preview frames of the camera in the given metrics.
+     *
+     * @param scanMetrics the metrics to update, or null
+     */
+    public void setScanMetrics(ScanMetrics scanMetrics) {
+        cameraManager.setScanMetrics(scanMetrics);
+    }
+
     public void setReadyHandler(Handler readyHandler) {
         this.readyHandler = readyHandler;
     }
@@ -17,6 +17,7 @@
 package com.qrscanner.barcodescanner.camera;
 
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.hardware.Camera;
 import android.os.Build;
 import android.util.Log;
@@ -26,6 +27,7 @@ import com.qrscanner.barcodescanner.Size;
 import com.google.zxing.client.android.AmbientLightManager;
 import com.google.zxing.client.android.camera.CameraConfigurationUtils;
 import com.google.zxing.client.android.camera.open.OpenCameraInterface;
+import com.qrscanner.barcodescanner.ScanMetrics;
 import com.qrscanner.barcodescanner.SourceData;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -70,6 +72,11 @@ public final class CameraManager {
 
     private int rotationDegrees = -1;    // camera rotation vs display rotation
 
+    // Preview buffers, if buffered preview callbacks are enabled
+    private PreviewBufferPool bufferPool;
+
+    private volatile ScanMetrics scanMetrics;
+
     private Context context;
 
 
@@ -78,6 +85,8 @@ public final class CameraManager {
 
         private Size resolution;
 
+        private int format = ImageFormat.NV21;
+
         public CameraPreviewCallback() {
         }
 
@@ -85,6 +94,10 @@ public final class CameraManager {
             this.resolution = resolution;
         }
 
+        public void setFormat(int format) {
+            this.format = format;
+        }
+
         public void setCallback(PreviewCallback callback) {
             this.callback = callback;
         }
@@ -93,13 +106,30 @@ public final class CameraManager {
         public void onPreviewFrame(byte[] data, Camera camera) {
             Size cameraResolution = resolution;
             PreviewCallback callback = this.callback;
+            PreviewBufferPool pool = bufferPool;
+            ScanMetrics metrics = scanMetrics;
+            if (metrics != null) {
+                metrics.cameraFrame();
+            }
+            if (pool != null) {
+                if (callback == null) {
+                    // Nobody asked for this frame - drop it and give the buffer back to the camera.
+                    pool.recycle(data);
+                    if (metrics != null) {
+                        metrics.frameDropped();
+                    }
+                    return;
+                }
+                // Buffered callbacks are delivered continuously; only pass on one frame per request.
+                this.callback = null;
+            }
             if (cameraResolution != null && callback != null) {
                 try {
                     if(data == null) {
                         throw new NullPointerException("No preview data received");
                     }
-                    int format = camera.getParameters().getPreviewFormat();
                     SourceData source = new SourceData(data, cameraResolution.width, cameraResolution.height, format, getCameraRotation());
+                    source.setBufferPool(pool);
 
                     if (cameraInfo.facing == Camera.CameraInfo.CAMERA_FACING_FRONT) {
                         source.setPreviewMirrored(true);
@@ -107,9 +137,11 @@ public final class CameraManager {
                     callback.onPreview(source);
                 } catch (RuntimeException e) {
                     // Could be:
-                    // java.lang.RuntimeException: getParameters failed (empty parameters)
                     // IllegalArgumentException: Image data does not match the resolution
                     Log.e(TAG, "Camera preview failed", e);
+                    if (pool != null) {
+                        pool.recycle(data);
+                    }
                     callback.onPreviewError(e);
                 }
             } else {
@@ -180,6 +212,12 @@ public final class CameraManager {
     public void startPreview() {
         Camera theCamera = camera;
         if (theCamera != null && !previewing) {
+            int bufferCount = settings.getPreviewBufferCount();
+            if (bufferCount > 0 && previewSize != null) {
+                int bufferSize = previewSize.width * previewSize.height * ImageFormat.getBitsPerPixel(cameraPreviewCallback.format) / 8;
+                bufferPool = new PreviewBufferPool(theCamera, bufferSize, bufferCount);
+                theCamera.setPreviewCallbackWithBuffer(cameraPreviewCallback);
+            }
             theCamera.startPreview();
             previewing = true;
             autoFocusManager = new AutoFocusManager(camera, settings);
@@ -202,7 +240,12 @@ public final class CameraManager {
             ambientLightManager.stop();
             ambientLightManager = null;
         }
+        if (bufferPool != null) {
+            bufferPool.close();
+            bufferPool = null;
+        }
         if (camera != null && previewing) {
+            camera.setPreviewCallbackWithBuffer(null);
             camera.stopPreview();
             cameraPreviewCallback.setCallback(null);
             previewing = false;
@@ -378,13 +421,15 @@ public final class CameraManager {
             }
         }
 
-        Camera.Size realPreviewSize = camera.getParameters().getPreviewSize();
+        Camera.Parameters realParameters = camera.getParameters();
+        Camera.Size realPreviewSize = realParameters.getPreviewSize();
         if (realPreviewSize == null) {
             previewSize = requestedPreviewSize;
         } else {
             previewSize = new Size(realPreviewSize.width, realPreviewSize.height);
         }
         cameraPreviewCallback.setResolution(previewSize);
+        cameraPreviewCallback.setFormat(realParameters.getPreviewFormat());
     }
 
     /**
@@ -425,13 +470,18 @@ public final class CameraManager {
      * The thread on which this called is undefined, so a Handler should be used to post the result
      * to the correct thread.
      *
+     * If preview buffers are enabled in the CameraSettings, the frame must be returned with
+     * SourceData.release() once it is no longer used.
+     *
      * @param callback The callback to receive the preview.
      */
     public void requestPreviewFrame(PreviewCallback callback) {
         Camera theCamera = camera;
         if (theCamera != null && previewing) {
             cameraPreviewCallback.setCallback(callback);
-            theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            if (bufferPool == null) {
+                theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            }
         }
     }
 
@@ -451,6 +501,21 @@ public final class CameraManager {
         this.displayConfiguration = displayConfiguration;
     }
 
+    public ScanMetrics getScanMetrics() {
+        return scanMetrics;
+    }
+
+    /**
+     * Count the preview frames of the camera, and the frames dropped because none was requested.
+     *
+     * May be called from any thread.
+     *
+     * @param scanMetrics the metrics to update, or null
+     */
+    public void setScanMetrics(ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+    }
+
     public void setTorch(boolean on) {
         if (camera != null) {
             try {
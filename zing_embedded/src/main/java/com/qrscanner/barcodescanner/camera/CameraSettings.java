@@ -14,6 +14,7 @@ public class CameraSettings {
     private boolean continuousFocusEnabled = false;
     private boolean exposureEnabled = false;
     private boolean autoTorchEnabled = false;
+    private int previewBufferCount = 0;
     private FocusMode focusMode = FocusMode.AUTO;
 
     public enum FocusMode {
@@ -160,4 +161,21 @@ public class CameraSettings {
     public void setAutoTorchEnabled(boolean autoTorchEnabled) {
         this.autoTorchEnabled = autoTorchEnabled;
     }
+
+    /**
+     * Default to 0.
+     *
+     * If greater than 0, preview frames are delivered into a ring of this many reusable buffers,
+     * using Camera.setPreviewCallbackWithBuffer(), instead of a newly allocated buffer per frame.
+     * Frames must then be returned with SourceData.release() after use.
+     *
+     * @return the number of preview callback buffers, or 0 to use one-shot preview callbacks
+     */
+    public int getPreviewBufferCount() {
+        return previewBufferCount;
+    }
+
+    public void setPreviewBufferCount(int previewBufferCount) {
+        this.previewBufferCount = previewBufferCount;
+    }
 }
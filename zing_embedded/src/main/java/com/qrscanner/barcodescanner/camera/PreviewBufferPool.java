@@ -0,0 +1,75 @@
+package com.qrscanner.barcodescanner.camera;
+
+import android.hardware.Camera;
+import android.os.Handler;
+import android.util.Log;
+
+/**
+ * A small ring of reusable preview buffers, registered with
+ * {@link Camera#addCallbackBuffer(byte[])}.
+ *
+ * Buffers are handed out with each preview frame, and must be given back with
+ * {@link #recycle(byte[])} once the frame is no longer used. recycle() may be called from any
+ * thread, e.g. the decoder thread; the buffer is given back to the camera on the camera thread.
+ */
+public final class PreviewBufferPool {
+    private static final String TAG = PreviewBufferPool.class.getSimpleName();
+
+    private final Camera camera;
+    private final int bufferSize;
+    // Handler of the camera thread
+    private final Handler handler;
+    private volatile boolean closed = false;
+
+    /**
+     * Must be called from camera thread.
+     *
+     * @param camera the camera to register the buffers with
+     * @param bufferSize size of a single preview frame, in bytes
+     * @param bufferCount number of buffers to allocate
+     */
+    PreviewBufferPool(Camera camera, int bufferSize, int bufferCount) {
+        this.camera = camera;
+        this.bufferSize = bufferSize;
+        this.handler = new Handler();
+        for (int i = 0; i < bufferCount; i++) {
+            camera.addCallbackBuffer(new byte[bufferSize]);
+        }
+    }
+
+    /**
+     * Return a buffer to the camera, so that it can be filled with a new preview frame.
+     *
+     * This has no effect if the pool is closed, or if the buffer does not belong to this pool.
+     *
+     * @param buffer the buffer
+     */
+    public void recycle(final byte[] buffer) {
+        if (closed || buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                // The pool may have been closed since the buffer was posted.
+                if (closed) {
+                    return;
+                }
+                try {
+                    camera.addCallbackBuffer(buffer);
+                } catch (RuntimeException e) {
+                    // Could happen if the camera is being closed.
+                    Log.w(TAG, "Failed to recycle preview buffer", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop recycling buffers. Must be called from camera thread, before the preview is stopped.
+     * Buffers posted to the camera thread before are not given back to the camera either.
+     */
+    void close() {
+        closed = true;
+    }
+}
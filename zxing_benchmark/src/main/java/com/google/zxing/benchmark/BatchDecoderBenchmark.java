@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.WriterException;
+import com.google.zxing.batch.BatchDecoder;
+import com.google.zxing.batch.BatchResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of 640x480 images decoded with {@link BatchDecoder}, to check how throughput scales
+ * with the number of worker threads. Half of the images contain a barcode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchDecoderBenchmark {
+
+  private static final int WIDTH = 640;
+  private static final int HEIGHT = 480;
+  private static final int BATCH_SIZE = 64;
+
+  @Param({"1", "2", "4"})
+  private int parallelism;
+
+  private final List<LuminanceSource> images = new ArrayList<>();
+  private BatchDecoder decoder;
+
+  @Setup
+  public void setUp() throws WriterException {
+    LuminanceSource[] corpus = {
+        BenchmarkImages.render(BarcodeFormat.QR_CODE, BenchmarkImages.TEXT, 300, WIDTH, HEIGHT),
+        BenchmarkImages.clutter(WIDTH, HEIGHT),
+        BenchmarkImages.render(BarcodeFormat.CODE_128, BenchmarkImages.DIGITS, 560, WIDTH, HEIGHT),
+        BenchmarkImages.clutter(WIDTH, HEIGHT),
+    };
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      images.add(corpus[i % corpus.length]);
+    }
+    decoder = new BatchDecoder(null, parallelism);
+  }
+
+  @TearDown
+  public void tearDown() {
+    decoder.close();
+  }
+
+  @Benchmark
+  public List<BatchResult> decodeAll() {
+    return decoder.decodeAll(images);
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic corpus of benchmark images. Barcodes are generated with the library's own writers
+ * and rendered like a camera would see them: dark modules on a lighter background, with a lighting
+ * gradient and sensor noise. Images without any barcode are also provided, since most preview
+ * frames in continuous scanning do not contain one.
+ */
+final class BenchmarkImages {
+
+  static final String TEXT = "ZXing benchmark 0123456789 ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+  static final String DIGITS = "012345678905";
+
+  private static final long SEED = 0x2BADC0DEL;
+  private static final int DARK = 40;
+  private static final int LIGHT = 210;
+  private static final int GRADIENT = 40;
+  private static final int NOISE = 24;
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * Encodes contents in the given format, at roughly codeSize pixels.
+   */
+  static BitMatrix encode(BarcodeFormat format, String contents, int codeSize) throws WriterException {
+    Map<EncodeHintType,Object> hints = new EnumMap<>(EncodeHintType.class);
+    hints.put(EncodeHintType.MARGIN, 0);
+    int height = format == BarcodeFormat.CODE_128 || format == BarcodeFormat.EAN_13 ? codeSize / 3 : codeSize;
+    return new MultiFormatWriter().encode(contents, format, codeSize, height, hints);
+  }
+
+  /**
+   * Renders a barcode in the center of an image of the given size.
+   */
+  static LuminanceSource render(BitMatrix code, int width, int height) {
+    byte[] pixels = background(width, height);
+    Random random = new Random(SEED);
+    int left = (width - code.getWidth()) / 2;
+    int top = (height - code.getHeight()) / 2;
+    for (int y = 0; y < code.getHeight(); y++) {
+      int offset = (top + y) * width + left;
+      for (int x = 0; x < code.getWidth(); x++) {
+        if (code.get(x, y)) {
+          pixels[offset + x] = (byte) clamp(DARK + random.nextInt(NOISE) - NOISE / 2);
+        }
+      }
+    }
+    return new PlanarYUVLuminanceSource(pixels, width, height, 0, 0, width, height, false);
+  }
+
+  /**
+   * Renders a barcode in the given format, as with {@link #render(BitMatrix, int, int)}.
+   */
+  static LuminanceSource render(BarcodeFormat format, String contents, int codeSize, int width, int height)
+      throws WriterException {
+    return render(encode(format, contents, codeSize), width, height);
+  }
+
+  /**
+   * An image without any barcode: background with blotches of random texture.
+   */
+  static LuminanceSource clutter(int width, int height) {
+    byte[] pixels = background(width, height);
+    Random random = new Random(SEED + 1);
+    for (int i = 0; i < 64; i++) {
+      int size = 8 + random.nextInt(Math.max(1, Math.min(width, height) / 8));
+      int left = random.nextInt(Math.max(1, width - size));
+      int top = random.nextInt(Math.max(1, height - size));
+      int luminance = random.nextInt(256);
+      for (int y = top; y < top + size; y++) {
+        for (int x = left; x < left + size; x++) {
+          pixels[y * width + x] = (byte) clamp(luminance + random.nextInt(NOISE) - NOISE / 2);
+        }
+      }
+    }
+    return new PlanarYUVLuminanceSource(pixels, width, height, 0, 0, width, height, false);
+  }
+
+  static BinaryBitmap bitmap(LuminanceSource source) {
+    return new BinaryBitmap(new HybridBinarizer(source));
+  }
+
+  private static byte[] background(int width, int height) {
+    byte[] pixels = new byte[width * height];
+    Random random = new Random(SEED + width * 31 + height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int gradient = GRADIENT * x / width;
+        pixels[y * width + x] = (byte) clamp(LIGHT - gradient + random.nextInt(NOISE) - NOISE / 2);
+      }
+    }
+    return pixels;
+  }
+
+  private static int clamp(int value) {
+    return value < 0 ? 0 : Math.min(value, 255);
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.common.InvertedBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binarization of a whole camera-sized image containing a QR code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinarizerBenchmark {
+
+  @Param({"640x480", "1280x720", "1920x1080"})
+  public String resolution;
+
+  private LuminanceSource source;
+
+  @Setup
+  public void setUp() throws WriterException {
+    String[] dimensions = resolution.split("x");
+    int width = Integer.parseInt(dimensions[0]);
+    int height = Integer.parseInt(dimensions[1]);
+    source = BenchmarkImages.render(BarcodeFormat.QR_CODE, BenchmarkImages.TEXT, height / 2, width, height);
+  }
+
+  @Benchmark
+  public BitMatrix hybridBinarizer() throws NotFoundException {
+    return new HybridBinarizer(source).getBlackMatrix();
+  }
+
+  /**
+   * Both polarities, with the negative derived from the block statistics of the first pass.
+   */
+  @Benchmark
+  public BitMatrix hybridBinarizerBothPolarities() throws NotFoundException {
+    HybridBinarizer binarizer = new HybridBinarizer(source);
+    binarizer.getBlackMatrix();
+    return new InvertedBinarizer(binarizer).getBlackMatrix();
+  }
+
+  /**
+   * Both polarities, binarizing the inverted image from scratch.
+   */
+  @Benchmark
+  public BitMatrix hybridBinarizerInvertedSource() throws NotFoundException {
+    new HybridBinarizer(source).getBlackMatrix();
+    return new HybridBinarizer(source.invert()).getBlackMatrix();
+  }
+
+  /**
+   * Lazy binarization, reading only the middle row, as a reader scanning part of the image would.
+   */
+  @Benchmark
+  public BitArray hybridBinarizerLazyMiddleRow() throws NotFoundException {
+    BitMatrix matrix = new HybridBinarizer(source, null, true).getBlackMatrix();
+    return matrix.getRow(matrix.getHeight() / 2, null);
+  }
+
+  @Benchmark
+  public BitMatrix globalHistogramBinarizer() throws NotFoundException {
+    return new GlobalHistogramBinarizer(source).getBlackMatrix();
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QR code decodes of a 12 megapixel photo, locating the finder patterns at full resolution or on
+ * a scaled down copy, with a lazily binarized black matrix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PyramidBenchmark {
+
+  private static final int WIDTH = 4000;
+  private static final int HEIGHT = 3000;
+
+  @Param({"1", "2", "4"})
+  public int scale;
+
+  private LuminanceSource qrCode;
+  private LuminanceSource clutter;
+  private final Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+  private final QRCodeReader reader = new QRCodeReader();
+
+  @Setup
+  public void setUp() throws WriterException, ReaderException {
+    qrCode = BenchmarkImages.render(BarcodeFormat.QR_CODE, BenchmarkImages.TEXT, 1000, WIDTH, HEIGHT);
+    clutter = BenchmarkImages.clutter(WIDTH, HEIGHT);
+    hints.put(DecodeHintType.PYRAMID_SCALE, scale);
+    // Make sure the code is actually decodable at this scale
+    reader.decode(bitmap(qrCode), hints);
+  }
+
+  @Benchmark
+  public Result qrCode() throws ReaderException {
+    return reader.decode(bitmap(qrCode), hints);
+  }
+
+  @Benchmark
+  public Result miss() {
+    try {
+      return reader.decode(bitmap(clutter), hints);
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+  private static BinaryBitmap bitmap(LuminanceSource source) {
+    return new BinaryBitmap(new HybridBinarizer(source, null, true));
+  }
+
+}
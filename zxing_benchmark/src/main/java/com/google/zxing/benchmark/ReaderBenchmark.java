@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.WriterException;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full decodes, including binarization, of 640x480 images as delivered by a camera preview.
+ * Every invocation binarizes again, since a BinaryBitmap caches its matrix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+  private static final int WIDTH = 640;
+  private static final int HEIGHT = 480;
+
+  private LuminanceSource qrCode;
+  private LuminanceSource dataMatrix;
+  private LuminanceSource pdf417;
+  private LuminanceSource code128;
+  private LuminanceSource clutter;
+
+  private final QRCodeReader qrCodeReader = new QRCodeReader();
+  private final DataMatrixReader dataMatrixReader = new DataMatrixReader();
+  private final PDF417Reader pdf417Reader = new PDF417Reader();
+  private final MultiFormatReader multiFormatReader = new MultiFormatReader();
+
+  @Setup
+  public void setUp() throws WriterException, ReaderException {
+    qrCode = BenchmarkImages.render(BarcodeFormat.QR_CODE, BenchmarkImages.TEXT, 300, WIDTH, HEIGHT);
+    dataMatrix = BenchmarkImages.render(BarcodeFormat.DATA_MATRIX, BenchmarkImages.TEXT, 300, WIDTH, HEIGHT);
+    pdf417 = BenchmarkImages.render(BarcodeFormat.PDF_417, BenchmarkImages.TEXT, 560, WIDTH, HEIGHT);
+    code128 = BenchmarkImages.render(BarcodeFormat.CODE_128, BenchmarkImages.DIGITS, 560, WIDTH, HEIGHT);
+    clutter = BenchmarkImages.clutter(WIDTH, HEIGHT);
+    multiFormatReader.setHints(null);
+
+    // Make sure the corpus is actually decodable, so that the numbers measure successful decodes.
+    qrCodeReader.decode(BenchmarkImages.bitmap(qrCode));
+    dataMatrixReader.decode(BenchmarkImages.bitmap(dataMatrix));
+    pdf417Reader.decode(BenchmarkImages.bitmap(pdf417));
+    multiFormatReader.decodeWithState(BenchmarkImages.bitmap(code128));
+  }
+
+  @Benchmark
+  public Result qrCodeReader() throws ReaderException {
+    return qrCodeReader.decode(BenchmarkImages.bitmap(qrCode));
+  }
+
+  @Benchmark
+  public Result dataMatrixReader() throws ReaderException {
+    return dataMatrixReader.decode(BenchmarkImages.bitmap(dataMatrix));
+  }
+
+  @Benchmark
+  public Result pdf417Reader() throws ReaderException {
+    return pdf417Reader.decode(BenchmarkImages.bitmap(pdf417));
+  }
+
+  @Benchmark
+  public Result multiFormatReaderQRCode() throws ReaderException {
+    return multiFormatReader.decodeWithState(BenchmarkImages.bitmap(qrCode));
+  }
+
+  @Benchmark
+  public Result multiFormatReaderCode128() throws ReaderException {
+    return multiFormatReader.decodeWithState(BenchmarkImages.bitmap(code128));
+  }
+
+  /**
+   * The common case in continuous scanning: a frame without any barcode, tried by every reader.
+   */
+  @Benchmark
+  public Result multiFormatReaderMiss() {
+    try {
+      return multiFormatReader.decodeWithState(BenchmarkImages.bitmap(clutter));
+    } catch (ReaderException re) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonEncoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reed-Solomon decoding of a QR code sized block (GF(256), 100 data + 30 EC codewords) with a
+ * varying number of corrupted codewords. Zero errors is the common case for a clean scan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReedSolomonBenchmark {
+
+  private static final int DATA_CODEWORDS = 100;
+  private static final int EC_CODEWORDS = 30;
+
+  @Param({"0", "1", "8", "15"})
+  public int errors;
+
+  private final ReedSolomonDecoder decoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
+  private int[] corrupted;
+  private int[] received;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(errors);
+    int[] codewords = new int[DATA_CODEWORDS + EC_CODEWORDS];
+    for (int i = 0; i < DATA_CODEWORDS; i++) {
+      codewords[i] = random.nextInt(256);
+    }
+    new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256).encode(codewords, EC_CODEWORDS);
+    for (int i = 0; i < errors; i++) {
+      int position = i * codewords.length / errors;
+      codewords[position] ^= 1 + random.nextInt(255);
+    }
+    corrupted = codewords;
+    received = new int[codewords.length];
+  }
+
+  @Benchmark
+  public int[] decode() throws ReedSolomonException {
+    System.arraycopy(corrupted, 0, received, 0, corrupted.length);
+    decoder.decode(received, EC_CODEWORDS);
+    return received;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of barcodes to a 400 pixel BitMatrix, as done when showing a barcode on screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+  private static final int SIZE = 400;
+
+  private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+  private final MultiFormatWriter multiFormatWriter = new MultiFormatWriter();
+
+  @Benchmark
+  public BitMatrix qrCodeWriter() throws WriterException {
+    return qrCodeWriter.encode(BenchmarkImages.TEXT, BarcodeFormat.QR_CODE, SIZE, SIZE);
+  }
+
+  @Benchmark
+  public BitMatrix multiFormatWriter(Format format) throws WriterException {
+    return multiFormatWriter.encode(format.contents(), format.format, SIZE, SIZE);
+  }
+
+  @State(Scope.Benchmark)
+  public static class Format {
+
+    @Param({"QR_CODE", "DATA_MATRIX", "PDF_417", "AZTEC", "CODE_128"})
+    public BarcodeFormat format;
+
+    String contents() {
+      return format == BarcodeFormat.CODE_128 ? BenchmarkImages.DIGITS : BenchmarkImages.TEXT;
+    }
+  }
+
+}
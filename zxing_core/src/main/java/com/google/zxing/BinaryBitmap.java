@@ -18,6 +18,7 @@ package com.google.zxing;
 
 import com.google.zxing.common.BitArray;
 import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.CroppedBinarizer;
 
 /**
  * This class is the core bitmap class used by ZXing to represent 1 bit data. Reader objects
@@ -29,6 +30,7 @@ public final class BinaryBitmap {
 
   private final Binarizer binarizer;
   private BitMatrix matrix;
+  private BinaryBitmap scaled;
 
   public BinaryBitmap(Binarizer binarizer) {
     if (binarizer == null) {
@@ -51,6 +53,13 @@ public final class BinaryBitmap {
     return binarizer.getHeight();
   }
 
+  /**
+   * @return The luminance data this bitmap is converted from, e.g. to sample it other than by row.
+   */
+  public LuminanceSource getLuminanceSource() {
+    return binarizer.getLuminanceSource();
+  }
+
   /**
    * Converts one row of luminance data to 1 bit data. May actually do the conversion, or return
    * cached data. Callers should assume this method is expensive and call it as seldom as possible.
@@ -87,6 +96,42 @@ public final class BinaryBitmap {
     return matrix;
   }
 
+  /**
+   * Returns a copy of this bitmap scaled down by averaging the luminance data, binarized the same
+   * way. The copy is cached, so that several 2D Readers can search the same one.
+   *
+   * @param scale The factor to scale down by.
+   * @return A scaled down version of this object.
+   */
+  public BinaryBitmap scaleDown(int scale) {
+    if (scaled == null || scale != ((ScaledLuminanceSource) scaled.getLuminanceSource()).getScale()) {
+      LuminanceSource newSource = new ScaledLuminanceSource(binarizer.getLuminanceSource(), scale);
+      scaled = new BinaryBitmap(binarizer.createBinarizer(newSource));
+    }
+    return scaled;
+  }
+
+  /**
+   * Returns a new object with the same image data and a new binarizer of the same kind, so that
+   * it can be decoded on another thread than this one.
+   *
+   * @return A copy of this object.
+   */
+  public BinaryBitmap copy() {
+    return new BinaryBitmap(binarizer.createBinarizer(binarizer.getLuminanceSource()));
+  }
+
+  /**
+   * Returns a new object with inverted image data, binarized the same way, to find light barcodes
+   * on a dark background.
+   *
+   * @return An inverted version of this object.
+   */
+  public BinaryBitmap invert() {
+    LuminanceSource newSource = binarizer.getLuminanceSource().invert();
+    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+  }
+
   /**
    * @return Whether this bitmap can be cropped.
    */
@@ -109,6 +154,22 @@ public final class BinaryBitmap {
     return new BinaryBitmap(binarizer.createBinarizer(newSource));
   }
 
+  /**
+   * Returns a new object with a region of the 1 bit data of this one, instead of binarizing the
+   * cropped image data again. Searching several regions of an image this way binarizes it once.
+   * Only callable if isCropSupported() is true.
+   *
+   * @param left The left coordinate, which must be in [0,getWidth())
+   * @param top The top coordinate, which must be in [0,getHeight())
+   * @param width The width of the rectangle to crop.
+   * @param height The height of the rectangle to crop.
+   * @return A cropped version of this object.
+   * @see CroppedBinarizer
+   */
+  public BinaryBitmap cropBinarized(int left, int top, int width, int height) {
+    return new BinaryBitmap(new CroppedBinarizer(binarizer, left, top, width, height));
+  }
+
   /**
    * @return Whether this bitmap supports counter-clockwise rotation.
    */
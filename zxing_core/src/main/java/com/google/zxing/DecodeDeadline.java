@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Bounds the time spent decoding an image, passed with {@link DecodeHintType#DEADLINE}.
+ * Readers and detectors check it between rows, candidates and other units of work, and give up
+ * with {@link NotFoundException#getCancelledInstance()} once it has expired or was cancelled.
+ * Checks are cooperative: a decode stops soon after the deadline, not exactly at it.</p>
+ *
+ * <p>The same deadline may be reused for successive images, calling {@link #restart()} before
+ * each one, so that the hints and readers need not be set up again.</p>
+ */
+public final class DecodeDeadline {
+
+  private final long timeoutNanos;
+  private volatile long deadlineNanos;
+  private volatile boolean cancelled;
+
+  /**
+   * Creates a deadline without a time limit, which only expires when cancelled.
+   */
+  public DecodeDeadline() {
+    timeoutNanos = -1L;
+  }
+
+  /**
+   * Creates a deadline which expires the given time from now, or from the last {@link #restart()}.
+   *
+   * @param timeout time allowed for decoding
+   * @param unit unit of timeout
+   */
+  public DecodeDeadline(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Negative timeout: " + timeout);
+    }
+    timeoutNanos = unit.toNanos(timeout);
+    restart();
+  }
+
+  /**
+   * Starts counting the timeout again from now, and clears a previous cancellation.
+   */
+  public void restart() {
+    if (timeoutNanos >= 0) {
+      deadlineNanos = System.nanoTime() + timeoutNanos;
+    }
+    cancelled = false;
+  }
+
+  /**
+   * Makes the deadline expire now. May be called from any thread, e.g. when the result of a decode
+   * in progress is no longer needed.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * @return true if the deadline has passed or was cancelled
+   */
+  public boolean isExpired() {
+    return cancelled || (timeoutNanos >= 0 && System.nanoTime() - deadlineNanos >= 0);
+  }
+
+  /**
+   * @param hints decode hints, or null
+   * @return the deadline in the hints, or null if there is none
+   */
+  public static DecodeDeadline fromHints(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeDeadline) hints.get(DecodeHintType.DEADLINE);
+  }
+
+  /**
+   * Gives up decoding if the deadline has expired.
+   *
+   * @param deadline the deadline to check; nothing is checked if null
+   * @throws NotFoundException the {@link NotFoundException#getCancelledInstance() cancelled instance}
+   *  if the deadline has expired
+   */
+  public static void check(DecodeDeadline deadline) throws NotFoundException {
+    if (deadline != null && deadline.isExpired()) {
+      throw NotFoundException.getCancelledInstance();
+    }
+  }
+
+}
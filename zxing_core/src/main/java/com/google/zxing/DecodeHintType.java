@@ -98,6 +98,41 @@ public enum DecodeHintType {
    */
   ALLOWED_EAN_EXTENSIONS(int[].class),
 
+  /**
+   * Let {@link MultiFormatReader} adapt the order of its readers to the barcodes it has recently
+   * found, and only occasionally try readers which have not found anything recently. Intended for
+   * continuous scanning with {@link MultiFormatReader#decodeWithState(BinaryBitmap)}.
+   * Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  ADAPTIVE_FORMAT_ORDER(Void.class),
+
+  /**
+   * Let 1D readers also search along scanlines at several angles, sampled straight from the
+   * luminance data, to find barcodes at any orientation. This replaces the rotated second pass
+   * of {@link #TRY_HARDER}. Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  OMNIDIRECTIONAL(Void.class),
+
+  /**
+   * Give up decoding once a deadline has expired or was cancelled, throwing
+   * {@link NotFoundException#getCancelledInstance()}. Maps to a {@link DecodeDeadline}.
+   */
+  DEADLINE(DecodeDeadline.class),
+
+  /**
+   * Record the time spent in each reader and stage of decoding. Maps to a {@link DecodeTracer}.
+   */
+  TRACER(DecodeTracer.class),
+
+  /**
+   * Let the QR Code reader search for finder patterns on a copy of the image scaled down by this
+   * factor, typically 2 or 4, then center them and sample the code on the full resolution image.
+   * This speeds up large images, especially with a lazily computed black matrix, as long as the
+   * modules stay a few pixels wide once scaled down. With {@link #TRY_HARDER}, a code not found
+   * on the scaled down image is searched for again at full resolution. (Type {@link Integer}.)
+   */
+  PYRAMID_SCALE(Integer.class),
+
   // End of enumeration values.
   ;
 
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Records where decoding spends its time, per reader and per stage of decoding. Pass it with
+ * {@link DecodeHintType#TRACER}; {@link MultiFormatReader} then records each reader it tries as an
+ * attempt, and the readers mark the stages they go through. A reader which delegates to other
+ * readers, as {@link com.google.zxing.oned.MultiFormatOneDReader} does to each 1D format, also
+ * charges the time of each of them with {@link #addReaderTime(String, long, boolean)}.</p>
+ *
+ * <p>Each attempt contributes one sample to the statistics of the reader and of each stage it
+ * went through, so the histograms show how long a stage typically takes per image. A tracer may be
+ * shared by readers on several threads.</p>
+ *
+ * <p>Allocation is only recorded where the platform can measure it: override
+ * {@link #getAllocatedBytes()}, e.g. with {@code com.sun.management.ThreadMXBean} on a JVM.</p>
+ */
+public class DecodeTracer {
+
+  /**
+   * Stages of decoding an image. Not every reader goes through all of them.
+   */
+  public enum Stage {
+    /** Converting luminance to black and white, for the whole image or a row. */
+    BINARIZATION,
+    /** Locating a barcode. For 1D barcodes, this includes decoding the row. */
+    DETECTION,
+    /**
+     * Reading the modules of a located barcode, or sampling an omnidirectional 1D scanline. Of the 2D
+     * readers, only QR Code and PDF417 report it apart from detection.
+     */
+    SAMPLING,
+    /** Reed-Solomon or other error correction. */
+    ERROR_CORRECTION,
+    /** Turning the corrected codewords into text. */
+    PARSING
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private final Map<String,Stats> attemptStats = new LinkedHashMap<>();
+  private final Map<String,Stats[]> stageStats = new LinkedHashMap<>();
+  private final ThreadLocal<Attempt> currentAttempt = new ThreadLocal<Attempt>() {
+    @Override
+    protected Attempt initialValue() {
+      return new Attempt();
+    }
+  };
+
+  /**
+   * @param hints decode hints, or null
+   * @return the tracer in the hints, or null if there is none
+   */
+  public static DecodeTracer fromHints(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeTracer) hints.get(DecodeHintType.TRACER);
+  }
+
+  /**
+   * Marks the start of a stage of the current attempt, and the end of the previous stage.
+   *
+   * @param tracer the tracer to record with; nothing is recorded if null
+   * @param stage the stage starting now
+   */
+  public static void stage(DecodeTracer tracer, Stage stage) {
+    if (tracer != null) {
+      tracer.stage(stage);
+    }
+  }
+
+  /**
+   * Starts recording an attempt of a reader on the current thread.
+   *
+   * @param reader name of the reader
+   */
+  public void beginAttempt(String reader) {
+    Attempt attempt = currentAttempt.get();
+    attempt.clear();
+    attempt.reader = reader;
+    attempt.startNanos = System.nanoTime();
+    attempt.startBytes = getAllocatedBytes();
+  }
+
+  /**
+   * Marks the start of a stage of the attempt on the current thread, and the end of the previous
+   * stage. Ignored outside of an attempt.
+   *
+   * @param stage the stage starting now
+   */
+  public void stage(Stage stage) {
+    Attempt attempt = currentAttempt.get();
+    if (attempt.reader != null) {
+      attempt.endStage(System.nanoTime(), getAllocatedBytes());
+      attempt.stage = stage;
+    }
+  }
+
+  /**
+   * Charges time of the attempt on the current thread to a reader it delegates to. When the attempt
+   * ends, each such reader contributes one sample of its total time, and of whether it found the
+   * barcode, under its own name. Ignored outside of an attempt.
+   *
+   * @param reader name of the reader delegated to
+   * @param nanos time spent in the reader, in nanoseconds
+   * @param found whether the reader found a barcode
+   */
+  public void addReaderTime(String reader, long nanos, boolean found) {
+    Attempt attempt = currentAttempt.get();
+    if (attempt.reader != null) {
+      attempt.addReaderTime(reader, nanos, found);
+    }
+  }
+
+  /**
+   * Ends the attempt on the current thread and adds it to the statistics.
+   *
+   * @param found whether the reader found a barcode
+   */
+  public void endAttempt(boolean found) {
+    Attempt attempt = currentAttempt.get();
+    if (attempt.reader == null) {
+      return;
+    }
+    long nanos = System.nanoTime();
+    long bytes = getAllocatedBytes();
+    attempt.endStage(nanos, bytes);
+    synchronized (this) {
+      attemptStats(attempt.reader).add(nanos - attempt.startNanos, bytes - attempt.startBytes, found);
+      Stats[] stages = stageStats.get(attempt.reader);
+      for (int i = 0; i < stages.length; i++) {
+        if (attempt.stageUsed[i]) {
+          stages[i].add(attempt.stageNanos[i], attempt.stageBytes[i], found);
+        }
+      }
+      for (Map.Entry<String,long[]> entry : attempt.readerTimes.entrySet()) {
+        long[] time = entry.getValue();
+        attemptStats(entry.getKey()).add(time[0], 0L, time[1] != 0);
+      }
+    }
+    attempt.clear();
+  }
+
+  /**
+   * Must be called while synchronized on this tracer.
+   *
+   * @return the statistics of a reader, created with those of its stages if needed
+   */
+  private Stats attemptStats(String reader) {
+    Stats stats = attemptStats.get(reader);
+    if (stats == null) {
+      stats = new Stats();
+      attemptStats.put(reader, stats);
+      Stats[] stages = new Stats[STAGES.length];
+      for (int i = 0; i < stages.length; i++) {
+        stages[i] = new Stats();
+      }
+      stageStats.put(reader, stages);
+    }
+    return stats;
+  }
+
+  /**
+   * Override to record allocation, on platforms which can measure it.
+   *
+   * @return bytes allocated so far by the current thread, or 0 if not measured
+   */
+  protected long getAllocatedBytes() {
+    return 0L;
+  }
+
+  /**
+   * @return names of the readers attempted so far
+   */
+  public synchronized Collection<String> getReaders() {
+    return new ArrayList<>(attemptStats.keySet());
+  }
+
+  /**
+   * @param reader name of a reader
+   * @return statistics of whole attempts of the reader, or null if it was never attempted
+   */
+  public synchronized Stats getStats(String reader) {
+    Stats stats = attemptStats.get(reader);
+    return stats == null ? null : stats.copy();
+  }
+
+  /**
+   * @param reader name of a reader
+   * @param stage a stage of decoding
+   * @return statistics of the stage in attempts of the reader, or null if it was never attempted
+   */
+  public synchronized Stats getStats(String reader, Stage stage) {
+    Stats[] stages = stageStats.get(reader);
+    return stages == null ? null : stages[stage.ordinal()].copy();
+  }
+
+  /**
+   * Forgets all statistics recorded so far.
+   */
+  public synchronized void reset() {
+    attemptStats.clear();
+    stageStats.clear();
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder result = new StringBuilder();
+    for (Map.Entry<String,Stats> entry : attemptStats.entrySet()) {
+      result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+      Stats[] stages = stageStats.get(entry.getKey());
+      for (int i = 0; i < stages.length; i++) {
+        if (stages[i].getCount() > 0) {
+          result.append("  ").append(STAGES[i]).append(": ").append(stages[i]).append('\n');
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Aggregated durations and allocations, with a histogram of durations in power of two buckets.
+   */
+  public static final class Stats {
+
+    private static final int BUCKETS = 64;
+
+    private int count;
+    private int found;
+    private long totalNanos;
+    private long maxNanos;
+    private long totalBytes;
+    private final int[] histogram;
+
+    Stats() {
+      histogram = new int[BUCKETS];
+    }
+
+    private Stats(Stats other) {
+      count = other.count;
+      found = other.found;
+      totalNanos = other.totalNanos;
+      maxNanos = other.maxNanos;
+      totalBytes = other.totalBytes;
+      histogram = other.histogram.clone();
+    }
+
+    void add(long nanos, long bytes, boolean wasFound) {
+      count++;
+      if (wasFound) {
+        found++;
+      }
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      totalBytes += bytes;
+      histogram[bucket(nanos)]++;
+    }
+
+    Stats copy() {
+      return new Stats(this);
+    }
+
+    private static int bucket(long nanos) {
+      return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * @return number of samples
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * @return number of samples from attempts which found a barcode
+     */
+    public int getFoundCount() {
+      return found;
+    }
+
+    /**
+     * @return total duration of all samples, in nanoseconds
+     */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /**
+     * @return longest duration of a sample, in nanoseconds
+     */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * @return bytes allocated in total, if measured by the tracer
+     */
+    public long getTotalBytes() {
+      return totalBytes;
+    }
+
+    /**
+     * @return number of samples per duration bucket: bucket i counts durations in
+     *  [2<sup>i</sup>, 2<sup>i+1</sup>) nanoseconds
+     */
+    public int[] getHistogram() {
+      return histogram.clone();
+    }
+
+    /**
+     * @param fraction fraction of samples, e.g. 0.95
+     * @return upper bound of the duration of that fraction of samples, from the histogram, in
+     *  nanoseconds. Accurate to a factor of two.
+     */
+    public long getPercentileNanos(double fraction) {
+      long target = (long) Math.ceil(count * fraction);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += histogram[i];
+        if (seen >= target && seen > 0) {
+          return Math.min(maxNanos, (2L << i) - 1);
+        }
+      }
+      return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+      long mean = count == 0 ? 0 : totalNanos / count;
+      StringBuilder result = new StringBuilder();
+      result.append(count).append(" (").append(found).append(" found), mean ")
+          .append(mean / 1000).append(" us, p90 < ").append(getPercentileNanos(0.9) / 1000)
+          .append(" us, max ").append(maxNanos / 1000).append(" us");
+      if (totalBytes != 0) {
+        result.append(", ").append(totalBytes / count).append(" bytes");
+      }
+      return result.toString();
+    }
+
+  }
+
+  /**
+   * Stage durations of the attempt in progress on one thread.
+   */
+  private static final class Attempt {
+
+    String reader;
+    Stage stage;
+    long startNanos;
+    long startBytes;
+    long stageStartNanos;
+    long stageStartBytes;
+    final long[] stageNanos = new long[STAGES.length];
+    final long[] stageBytes = new long[STAGES.length];
+    final boolean[] stageUsed = new boolean[STAGES.length];
+    // Time and whether found, as 0 or 1, of the readers delegated to
+    final Map<String,long[]> readerTimes = new LinkedHashMap<>();
+
+    void endStage(long nanos, long bytes) {
+      if (stage != null) {
+        int i = stage.ordinal();
+        stageNanos[i] += nanos - stageStartNanos;
+        stageBytes[i] += bytes - stageStartBytes;
+        stageUsed[i] = true;
+      }
+      stageStartNanos = nanos;
+      stageStartBytes = bytes;
+    }
+
+    void addReaderTime(String delegate, long nanos, boolean found) {
+      long[] time = readerTimes.get(delegate);
+      if (time == null) {
+        time = new long[2];
+        readerTimes.put(delegate, time);
+      }
+      time[0] += nanos;
+      if (found) {
+        time[1] = 1;
+      }
+    }
+
+    void clear() {
+      reader = null;
+      stage = null;
+      readerTimes.clear();
+      for (int i = 0; i < stageUsed.length; i++) {
+        stageNanos[i] = 0;
+        stageBytes[i] = 0;
+        stageUsed[i] = false;
+      }
+    }
+
+  }
+
+}
@@ -43,9 +43,17 @@ public final class InvertedLuminanceSource extends LuminanceSource {
 
   @Override
   public byte[] getMatrix() {
-    byte[] matrix = delegate.getMatrix();
+    return getMatrix(null);
+  }
+
+  @Override
+  public byte[] getMatrix(byte[] invertedMatrix) {
     int length = getWidth() * getHeight();
-    byte[] invertedMatrix = new byte[length];
+    if (invertedMatrix == null || invertedMatrix.length < length) {
+      invertedMatrix = new byte[length];
+    }
+    // The delegate either fills invertedMatrix, which is then inverted in place, or returns its own data.
+    byte[] matrix = delegate.getMatrix(invertedMatrix);
     for (int i = 0; i < length; i++) {
       invertedMatrix[i] = (byte) (255 - (matrix[i] & 0xFF));
     }
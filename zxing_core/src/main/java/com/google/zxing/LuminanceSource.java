@@ -59,6 +59,19 @@ public abstract class LuminanceSource {
    */
   public abstract byte[] getMatrix();
 
+  /**
+   * Fetches luminance data for the underlying bitmap, like {@link #getMatrix()}, but copies it into
+   * the given array if a copy is needed. Subclasses which copy in getMatrix() should override this.
+   *
+   * @param matrix An optional preallocated array. If null or too small, it will be ignored.
+   *               Always use the returned object, and ignore the .length of the array.
+   * @return A row-major 2D array of luminance values, which may or may not be {@code matrix}.
+   *         Do not modify the contents of the result unless it is {@code matrix}.
+   */
+  public byte[] getMatrix(byte[] matrix) {
+    return getMatrix();
+  }
+
   /**
    * @return The width of the bitmap.
    */
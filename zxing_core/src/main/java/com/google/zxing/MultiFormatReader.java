@@ -41,6 +41,7 @@ public final class MultiFormatReader implements Reader {
 
   private Map<DecodeHintType,?> hints;
   private Reader[] readers;
+  private ReaderScheduler scheduler;
 
   /**
    * This version of decode honors the intent of Reader.decode(BinaryBitmap) in that it
@@ -155,6 +156,8 @@ public final class MultiFormatReader implements Reader {
       }
     }
     this.readers = readers.toArray(EMPTY_READER_ARRAY);
+    boolean adaptive = hints != null && hints.containsKey(DecodeHintType.ADAPTIVE_FORMAT_ORDER);
+    this.scheduler = adaptive ? new ReaderScheduler(this.readers.length) : null;
   }
 
   @Override
@@ -167,16 +170,62 @@ public final class MultiFormatReader implements Reader {
   }
 
   private Result decodeInternal(BinaryBitmap image) throws NotFoundException {
+    if (scheduler != null) {
+      return decodeScheduled(image);
+    }
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
     if (readers != null) {
       for (Reader reader : readers) {
+        DecodeDeadline.check(deadline);
         try {
-          return reader.decode(image, hints);
+          return decode(reader, image, tracer);
         } catch (ReaderException re) {
           // continue
         }
       }
     }
+    // Report running out of time rather than a plain miss
+    DecodeDeadline.check(deadline);
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  private Result decodeScheduled(BinaryBitmap image) throws NotFoundException {
+    int[] order = scheduler.schedule();
+    int count = scheduler.getScheduledCount();
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    for (int i = 0; i < count; i++) {
+      DecodeDeadline.check(deadline);
+      int index = order[i];
+      long start = System.nanoTime();
+      try {
+        Result result = decode(readers[index], image, tracer);
+        scheduler.recordHit(index);
+        return result;
+      } catch (ReaderException re) {
+        // continue
+      } finally {
+        scheduler.recordAttempt(index, System.nanoTime() - start);
+      }
+    }
+    DecodeDeadline.check(deadline);
     throw NotFoundException.getNotFoundInstance();
   }
 
+  private Result decode(Reader reader, BinaryBitmap image, DecodeTracer tracer) throws ReaderException {
+    if (tracer == null) {
+      return reader.decode(image, hints);
+    }
+    tracer.beginAttempt(reader.getClass().getSimpleName());
+    boolean found = false;
+    try {
+      Result result = reader.decode(image, hints);
+      found = true;
+      return result;
+    } finally {
+      tracer.endAttempt(found);
+    }
+  }
+
 }
@@ -25,8 +25,10 @@ package com.google.zxing;
 public final class NotFoundException extends ReaderException {
 
   private static final NotFoundException INSTANCE = new NotFoundException();
+  private static final NotFoundException CANCELLED_INSTANCE = new NotFoundException();
   static {
     INSTANCE.setStackTrace(NO_TRACE); // since it's meaningless
+    CANCELLED_INSTANCE.setStackTrace(NO_TRACE);
   }
 
   private NotFoundException() {
@@ -37,4 +39,19 @@ public final class NotFoundException extends ReaderException {
     return INSTANCE;
   }
 
+  /**
+   * @return the instance thrown when decoding was given up because its {@link DecodeDeadline}
+   *  expired, before the whole image was searched
+   */
+  public static NotFoundException getCancelledInstance() {
+    return CANCELLED_INSTANCE;
+  }
+
+  /**
+   * @return true if decoding was given up because its {@link DecodeDeadline} expired
+   */
+  public boolean isCancelled() {
+    return this == CANCELLED_INSTANCE;
+  }
+
 }
\ No newline at end of file
@@ -76,6 +76,11 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
 
   @Override
   public byte[] getMatrix() {
+    return getMatrix(null);
+  }
+
+  @Override
+  public byte[] getMatrix(byte[] matrix) {
     int width = getWidth();
     int height = getHeight();
 
@@ -86,7 +91,9 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
     }
 
     int area = width * height;
-    byte[] matrix = new byte[area];
+    if (matrix == null || matrix.length < area) {
+      matrix = new byte[area];
+    }
     int inputOffset = top * dataWidth + left;
 
     // If the width matches the full width of the underlying data, perform a single copy.
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.oned.MultiFormatOneDReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Tries the variants of an image that {@link MultiFormatReader} and the 1D readers would try
+ * one after the other concurrently, on a shared executor, and returns the first barcode found.
+ * The other variants are then cancelled through a {@link DecodeDeadline}. On a multi-core device,
+ * a hard image takes about as long as its slowest variant rather than all of them together.</p>
+ *
+ * <p>Each of the image as passed, its inverse and its binarization with a
+ * {@link GlobalHistogramBinarizer} is searched by the 2D readers, by the 1D readers and, with
+ * {@link DecodeHintType#TRY_HARDER}, by the 1D readers rotated by 90 degrees, as separate tasks.
+ * Every task binarizes its own copy of the image, so no binarizer, workspace or lazy black matrix
+ * is shared between threads, and none of the tasks is still running once a decode returns.</p>
+ *
+ * <p>A {@link DecodeHintType#DEADLINE} in the hints is honored while waiting. A reader may be
+ * used by several threads at once.</p>
+ */
+public final class RacingReader implements Reader {
+
+  private static final Set<BarcodeFormat> MATRIX_FORMATS = EnumSet.of(
+      BarcodeFormat.AZTEC, BarcodeFormat.DATA_MATRIX, BarcodeFormat.MAXICODE,
+      BarcodeFormat.PDF_417, BarcodeFormat.QR_CODE);
+  private static final Set<BarcodeFormat> ONE_D_FORMATS = EnumSet.of(
+      BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8,
+      BarcodeFormat.CODABAR, BarcodeFormat.CODE_39, BarcodeFormat.CODE_93, BarcodeFormat.CODE_128,
+      BarcodeFormat.ITF, BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED);
+  // How often the deadline of the caller is checked while waiting for the tasks
+  private static final long POLL_INTERVAL_MILLIS = 5L;
+
+  private final ExecutorService executor;
+
+  /**
+   * @param executor executor to run the variants on, typically shared with other decoders and
+   *  with at least as many threads as cores. It is not shut down by this reader.
+   */
+  public RacingReader(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image) throws NotFoundException {
+    return decode(image, null);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeDeadline.check(deadline);
+
+    Race race = new Race();
+    Map<DecodeHintType,Object> raceHints = new EnumMap<>(DecodeHintType.class);
+    if (hints != null) {
+      raceHints.putAll(hints);
+    }
+    raceHints.put(DecodeHintType.DEADLINE, race.deadline);
+
+    List<Callable<Result>> tasks = createTasks(image, raceHints, race);
+    CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+    List<Future<Result>> futures = new ArrayList<>(tasks.size());
+    try {
+      for (Callable<Result> task : tasks) {
+        futures.add(completion.submit(task));
+      }
+      for (int pending = futures.size(); pending > 0;) {
+        Future<Result> done = deadline == null ? completion.take() :
+            completion.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (done == null) {
+          DecodeDeadline.check(deadline);
+          continue;
+        }
+        pending--;
+        Result result = done.get();
+        if (result != null) {
+          return result;
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw NotFoundException.getCancelledInstance();
+    } catch (ExecutionException ee) {
+      Throwable cause = ee.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      // Drop the tasks not started yet, and wait for the running ones to stop at their next check
+      for (Future<Result> future : futures) {
+        future.cancel(false);
+      }
+      race.finish();
+    }
+    DecodeDeadline.check(deadline);
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  @Override
+  public void reset() {
+    // do nothing
+  }
+
+  private static List<Callable<Result>> createTasks(BinaryBitmap image,
+                                                    Map<DecodeHintType,?> hints,
+                                                    Race race) {
+    @SuppressWarnings("unchecked")
+    Collection<BarcodeFormat> formats = (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    Set<BarcodeFormat> matrixFormats = EnumSet.copyOf(MATRIX_FORMATS);
+    boolean oneD = true;
+    if (formats != null && !formats.isEmpty()) {
+      matrixFormats.retainAll(formats);
+      oneD = false;
+      for (BarcodeFormat format : formats) {
+        oneD |= ONE_D_FORMATS.contains(format);
+      }
+    }
+    boolean rotated = hints.containsKey(DecodeHintType.TRY_HARDER) &&
+        !hints.containsKey(DecodeHintType.OMNIDIRECTIONAL) && image.isRotateSupported();
+    Map<DecodeHintType,Object> matrixHints = new EnumMap<>(DecodeHintType.class);
+    matrixHints.putAll(hints);
+    matrixHints.put(DecodeHintType.POSSIBLE_FORMATS, matrixFormats);
+
+    // The variants are only templates: every task binarizes its own copy, and the bitmap of the
+    // caller is left untouched
+    BinaryBitmap[] variants = {
+        image,
+        image.invert(),
+        new BinaryBitmap(new GlobalHistogramBinarizer(image.getLuminanceSource())),
+    };
+    List<Callable<Result>> tasks = new ArrayList<>();
+    for (BinaryBitmap variant : variants) {
+      if (!matrixFormats.isEmpty()) {
+        tasks.add(matrixTask(variant.copy(), matrixHints, race));
+      }
+      if (oneD) {
+        tasks.add(oneDTask(variant.copy(), hints, false, race));
+        if (rotated) {
+          tasks.add(oneDTask(variant.copy(), hints, true, race));
+        }
+      }
+    }
+    return tasks;
+  }
+
+  private static Callable<Result> matrixTask(final BinaryBitmap image,
+                                             final Map<DecodeHintType,?> hints,
+                                             Race race) {
+    return new RaceTask(race) {
+      @Override
+      Result decode() throws ReaderException {
+        return new MultiFormatReader().decode(image, hints);
+      }
+    };
+  }
+
+  private static Callable<Result> oneDTask(final BinaryBitmap image,
+                                           final Map<DecodeHintType,?> hints,
+                                           final boolean rotated,
+                                           Race race) {
+    return new RaceTask(race) {
+      @Override
+      Result decode() throws ReaderException {
+        MultiFormatOneDReader reader = new MultiFormatOneDReader(hints);
+        if (rotated) {
+          return reader.decodeRotated(image, hints);
+        }
+        if (hints.containsKey(DecodeHintType.OMNIDIRECTIONAL)) {
+          return reader.decode(image, hints);
+        }
+        return reader.decodeUnrotated(image, hints);
+      }
+    };
+  }
+
+  /**
+   * The tasks of one image. Once the race is over, tasks not started yet return at once, and
+   * {@link #finish()} waits for the running ones to notice the cancelled deadline, so that no task
+   * still reads the image after {@link #decode(BinaryBitmap, Map)} returns.
+   */
+  private static final class Race {
+
+    final DecodeDeadline deadline = new DecodeDeadline();
+    private int running;
+    private boolean finished;
+
+    /**
+     * @return false if the race is over and the task must not start
+     */
+    synchronized boolean enter() {
+      if (finished) {
+        return false;
+      }
+      running++;
+      return true;
+    }
+
+    synchronized void exit() {
+      if (--running == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void finish() {
+      finished = true;
+      deadline.cancel();
+      boolean interrupted = false;
+      while (running > 0) {
+        try {
+          wait();
+        } catch (InterruptedException ie) {
+          // The tasks stop soon after the deadline is cancelled; keep waiting for them
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * A task of a race, which finds nothing if the race is over before it starts.
+   */
+  private abstract static class RaceTask implements Callable<Result> {
+
+    private final Race race;
+
+    RaceTask(Race race) {
+      this.race = race;
+    }
+
+    abstract Result decode() throws ReaderException;
+
+    @Override
+    public final Result call() {
+      if (!race.enter()) {
+        return null;
+      }
+      try {
+        return decode();
+      } catch (ReaderException re) {
+        return null;
+      } finally {
+        race.exit();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * Decides in which order {@link MultiFormatReader} tries its readers on each image, based on
+ * which readers found barcodes recently and how long each reader takes per attempt.
+ *
+ * Readers are ordered by recent hits per unit of decode time, so the reader most likely to
+ * succeed cheaply goes first. Once enough hits have been seen, readers without any recent hit
+ * are only probed every few images, so that a change of barcode format is still picked up.
+ * Until then, the default order is kept.
+ *
+ * @see DecodeHintType#ADAPTIVE_FORMAT_ORDER
+ */
+final class ReaderScheduler {
+
+  // Number of most recent hits that are taken into account
+  private static final int HIT_HISTORY = 50;
+  // Readers without recent hits are skipped only once this many hits have been seen
+  private static final int MIN_HITS_TO_SKIP = 10;
+  // Readers without recent hits are still tried on every PROBE_INTERVAL-th image
+  private static final int PROBE_INTERVAL = 8;
+  // Weight of the latest attempt in the moving average of the decode cost, as a shift
+  private static final int COST_AVERAGE_SHIFT = 3;
+
+  private final int readerCount;
+  private final int[] hitHistory;
+  private int hitHistoryPosition;
+  private int totalHits; // capped at HIT_HISTORY
+  private final int[] recentHits;
+  private final long[] averageCost;
+  private final int[] order;
+  private int scheduledCount;
+  private int images;
+
+  ReaderScheduler(int readerCount) {
+    this.readerCount = readerCount;
+    hitHistory = new int[HIT_HISTORY];
+    recentHits = new int[readerCount];
+    averageCost = new long[readerCount];
+    order = new int[readerCount];
+  }
+
+  /**
+   * Computes the readers to try on the next image.
+   *
+   * @return indexes of the readers to try, in order. Only the first {@link #getScheduledCount()}
+   *  entries are valid, and the array is reused by the next call.
+   */
+  int[] schedule() {
+    boolean probe = images++ % PROBE_INTERVAL == 0 || totalHits < MIN_HITS_TO_SKIP;
+    int count = 0;
+    for (int reader = 0; reader < readerCount; reader++) {
+      if (probe || recentHits[reader] > 0) {
+        // Insertion sort on the score, keeping the default order for ties
+        int i = count++;
+        while (i > 0 && compare(reader, order[i - 1]) > 0) {
+          order[i] = order[i - 1];
+          i--;
+        }
+        order[i] = reader;
+      }
+    }
+    scheduledCount = count;
+    return order;
+  }
+
+  /**
+   * @return number of valid entries in the array returned by the last {@link #schedule()}
+   */
+  int getScheduledCount() {
+    return scheduledCount;
+  }
+
+  /**
+   * Records the time taken by one attempt of a reader, whether it succeeded or not.
+   */
+  void recordAttempt(int reader, long nanos) {
+    long average = averageCost[reader];
+    averageCost[reader] = average == 0 ? nanos : average + ((nanos - average) >> COST_AVERAGE_SHIFT);
+  }
+
+  /**
+   * Records that a reader found a barcode.
+   */
+  void recordHit(int reader) {
+    if (totalHits >= HIT_HISTORY) {
+      recentHits[hitHistory[hitHistoryPosition]]--;
+    }
+    hitHistory[hitHistoryPosition] = reader;
+    hitHistoryPosition = (hitHistoryPosition + 1) % HIT_HISTORY;
+    recentHits[reader]++;
+    if (totalHits < HIT_HISTORY) {
+      totalHits++;
+    }
+  }
+
+  // Compares expected hits per unit of time: hits(a) / cost(a) vs. hits(b) / cost(b)
+  private int compare(int a, int b) {
+    long scoreA = recentHits[a] * Math.max(averageCost[b], 1L);
+    long scoreB = recentHits[b] * Math.max(averageCost[a], 1L);
+    return Long.compare(scoreA, scoreB);
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * A wrapper implementation of {@link LuminanceSource} which scales the image down by an integer
+ * factor, each pixel being the average of a square of pixels of the delegate. The scaled image is
+ * computed once, on first access, from the luminance matrix of the delegate.
+ */
+public final class ScaledLuminanceSource extends LuminanceSource {
+
+  private final LuminanceSource delegate;
+  private final int scale;
+  private byte[] luminances;
+
+  /**
+   * @param delegate the image to scale down
+   * @param scale the factor to scale down by; the width and height are rounded down
+   */
+  public ScaledLuminanceSource(LuminanceSource delegate, int scale) {
+    super(delegate.getWidth() / scale, delegate.getHeight() / scale);
+    if (scale < 1 || getWidth() == 0 || getHeight() == 0) {
+      throw new IllegalArgumentException("Cannot scale down by " + scale);
+    }
+    this.delegate = delegate;
+    this.scale = scale;
+  }
+
+  /**
+   * @return the factor the delegate is scaled down by
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    System.arraycopy(getMatrix(), y * width, row, 0, width);
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    if (luminances == null) {
+      luminances = scaleDown();
+    }
+    return luminances;
+  }
+
+  private byte[] scaleDown() {
+    int width = getWidth();
+    int height = getHeight();
+    int sourceWidth = delegate.getWidth();
+    byte[] matrix = delegate.getMatrix();
+    byte[] result = new byte[width * height];
+    if (scale == 2) {
+      // The common case, unrolled
+      for (int y = 0, offset = 0; y < height; y++) {
+        int row0 = 2 * y * sourceWidth;
+        int row1 = row0 + sourceWidth;
+        for (int x = 0; x < width; x++, offset++, row0 += 2, row1 += 2) {
+          int sum = (matrix[row0] & 0xFF) + (matrix[row0 + 1] & 0xFF) +
+              (matrix[row1] & 0xFF) + (matrix[row1 + 1] & 0xFF);
+          result[offset] = (byte) ((sum + 2) >> 2);
+        }
+      }
+      return result;
+    }
+    int area = scale * scale;
+    int[] sums = new int[width];
+    for (int y = 0, offset = 0; y < height; y++) {
+      // Sum each row of the block into sums, then average
+      for (int yy = 0, row = y * scale * sourceWidth; yy < scale; yy++, row += sourceWidth) {
+        if (scale == 4) {
+          for (int x = 0, i = row; x < width; x++, i += 4) {
+            sums[x] += (matrix[i] & 0xFF) + (matrix[i + 1] & 0xFF) + (matrix[i + 2] & 0xFF) + (matrix[i + 3] & 0xFF);
+          }
+        } else {
+          for (int xx = 0; xx < scale; xx++) {
+            for (int x = 0, i = row + xx; x < width; x++, i += scale) {
+              sums[x] += matrix[i] & 0xFF;
+            }
+          }
+        }
+      }
+      for (int x = 0; x < width; x++, offset++) {
+        result[offset] = (byte) ((sums[x] + area / 2) / area);
+        sums[x] = 0;
+      }
+    }
+    return result;
+  }
+
+}
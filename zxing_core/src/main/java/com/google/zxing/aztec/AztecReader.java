@@ -19,6 +19,7 @@ package com.google.zxing.aztec;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -58,13 +59,16 @@ public final class AztecReader implements Reader {
 
     NotFoundException notFoundException = null;
     FormatException formatException = null;
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
     Detector detector = new Detector(image.getBlackMatrix());
     ResultPoint[] points = null;
     DecoderResult decoderResult = null;
     try {
+      DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
       AztecDetectorResult detectorResult = detector.detect(false);
       points = detectorResult.getPoints();
-      decoderResult = new Decoder().decode(detectorResult);
+      decoderResult = new Decoder().decode(detectorResult, hints);
     } catch (NotFoundException e) {
       notFoundException = e;
     } catch (FormatException e) {
@@ -72,9 +76,10 @@ public final class AztecReader implements Reader {
     }
     if (decoderResult == null) {
       try {
+        DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
         AztecDetectorResult detectorResult = detector.detect(true);
         points = detectorResult.getPoints();
-        decoderResult = new Decoder().decode(detectorResult);
+        decoderResult = new Decoder().decode(detectorResult, hints);
       } catch (NotFoundException | FormatException e) {
         if (notFoundException != null) {
           throw notFoundException;
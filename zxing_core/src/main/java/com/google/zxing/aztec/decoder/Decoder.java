@@ -16,6 +16,8 @@
 
 package com.google.zxing.aztec.decoder;
 
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.aztec.AztecDetectorResult;
 import com.google.zxing.common.BitMatrix;
@@ -25,6 +27,7 @@ import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
 
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * <p>The main class which implements Aztec Code decoding -- as opposed to locating and extracting
@@ -71,11 +74,19 @@ public final class Decoder {
   private AztecDetectorResult ddata;
 
   public DecoderResult decode(AztecDetectorResult detectorResult) throws FormatException {
+    return decode(detectorResult, null);
+  }
+
+  public DecoderResult decode(AztecDetectorResult detectorResult, Map<DecodeHintType,?> hints)
+      throws FormatException {
     ddata = detectorResult;
     BitMatrix matrix = detectorResult.getBits();
     boolean[] rawbits = extractBits(matrix);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.ERROR_CORRECTION);
     boolean[] correctedBits = correctBits(rawbits);
     byte[] rawBytes = convertBoolArrayToByteArray(correctedBits);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.PARSING);
     String result = getEncodedData(correctedBits);
     DecoderResult decoderResult = new DecoderResult(rawBytes, result, null, null);
     decoderResult.setNumBits(correctedBits.length);
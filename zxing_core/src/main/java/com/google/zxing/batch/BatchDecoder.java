@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BinarizerWorkspace;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Decodes many images in parallel, e.g. to reprocess a collection of photos on a server.</p>
+ *
+ * <p>Images are spread over a {@link ForkJoinPool}. Each worker thread has its own
+ * {@link MultiFormatReader} and binarizer buffers, so workers share no mutable state and
+ * throughput grows with the number of cores.</p>
+ *
+ * <p>Results are returned in the order of the images, each with the time it took.</p>
+ */
+public final class BatchDecoder implements Closeable {
+
+  // Images decoded ahead of the consumer, per worker thread, when streaming
+  private static final int READ_AHEAD_PER_THREAD = 2;
+
+  private final ForkJoinPool pool;
+  private final ThreadLocal<Worker> workers;
+
+  /**
+   * Creates a decoder using all available processors.
+   *
+   * @param hints decode hints passed to each reader, or null
+   */
+  public BatchDecoder(Map<DecodeHintType,?> hints) {
+    this(hints, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param hints decode hints passed to each reader, or null
+   * @param parallelism number of worker threads
+   */
+  public BatchDecoder(Map<DecodeHintType,?> hints, int parallelism) {
+    this(hints, parallelism, -1L, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Creates a decoder which spends at most about the given time on each image. Images which take
+   * longer fail with {@link com.google.zxing.NotFoundException#getCancelledInstance()}.
+   *
+   * @param hints decode hints passed to each reader, or null
+   * @param parallelism number of worker threads
+   * @param timeout time allowed per image, not counting loading it
+   * @param unit unit of timeout
+   */
+  public BatchDecoder(final Map<DecodeHintType,?> hints, int parallelism, long timeout, TimeUnit unit) {
+    final long timeoutNanos = unit.toNanos(timeout);
+    pool = new ForkJoinPool(parallelism);
+    workers = new ThreadLocal<Worker>() {
+      @Override
+      protected Worker initialValue() {
+        return new Worker(hints, timeoutNanos);
+      }
+    };
+  }
+
+  /**
+   * Decodes all images and waits for the results.
+   *
+   * @param images images to decode
+   * @return one result per image, in the same order
+   */
+  public List<BatchResult> decodeAll(List<? extends LuminanceSource> images) {
+    BatchResult[] results = new BatchResult[images.size()];
+    if (results.length > 0) {
+      pool.invoke(new DecodeRange(images, results, 0, results.length));
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * <p>Decodes a stream of images. Loading an image, e.g. reading and converting a file, is done
+   * on the worker threads too.</p>
+   *
+   * <p>Only a few images per worker thread are loaded ahead of the consumer of the results,
+   * so the stream may be much larger than would fit in memory at once.</p>
+   *
+   * @param images loaders of the images to decode, called on a worker thread
+   * @return the results, in the same order as the images. The iterator blocks until the next
+   *  result is available.
+   */
+  public Iterator<BatchResult> decode(final Iterator<? extends Callable<? extends LuminanceSource>> images) {
+    final int readAhead = pool.getParallelism() * READ_AHEAD_PER_THREAD;
+    return new Iterator<BatchResult>() {
+      private final ArrayDeque<ForkJoinTask<BatchResult>> pending = new ArrayDeque<>();
+      private int submitted;
+
+      @Override
+      public boolean hasNext() {
+        return !pending.isEmpty() || images.hasNext();
+      }
+
+      @Override
+      public BatchResult next() {
+        while (pending.size() < readAhead && images.hasNext()) {
+          pending.add(pool.submit(new LoadAndDecode(submitted++, images.next())));
+        }
+        if (pending.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        return pending.poll().join();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Shuts down the worker threads. Images already submitted are still decoded.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+  private BatchResult decode(int index, LuminanceSource image, long loadNanos) {
+    long start = System.nanoTime();
+    Result result = null;
+    Exception exception = null;
+    try {
+      result = workers.get().decode(image);
+    } catch (ReaderException re) {
+      exception = re;
+    } catch (RuntimeException re) {
+      // A reader failing on one image, e.g. with an ArrayIndexOutOfBoundsException on a malformed
+      // barcode, fails only that image instead of the whole batch
+      exception = re;
+    }
+    return new BatchResult(index, result, exception, loadNanos, System.nanoTime() - start);
+  }
+
+  /**
+   * Per-thread decoding state.
+   */
+  private static final class Worker {
+
+    private final MultiFormatReader reader;
+    private final BinarizerWorkspace workspace;
+    private final DecodeDeadline deadline;
+
+    Worker(Map<DecodeHintType,?> hints, long timeoutNanos) {
+      reader = new MultiFormatReader();
+      if (timeoutNanos >= 0) {
+        // Each thread times its own images
+        deadline = new DecodeDeadline(timeoutNanos, TimeUnit.NANOSECONDS);
+        Map<DecodeHintType,Object> timedHints = new EnumMap<>(DecodeHintType.class);
+        if (hints != null) {
+          timedHints.putAll(hints);
+        }
+        timedHints.put(DecodeHintType.DEADLINE, deadline);
+        hints = timedHints;
+      } else {
+        deadline = null;
+      }
+      reader.setHints(hints);
+      workspace = new BinarizerWorkspace();
+    }
+
+    Result decode(LuminanceSource image) throws ReaderException {
+      if (deadline != null) {
+        deadline.restart();
+      }
+      try {
+        return reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(image, workspace)));
+      } finally {
+        reader.reset();
+      }
+    }
+
+  }
+
+  /**
+   * Splits a range of images in halves until single images remain, which are decoded.
+   */
+  private final class DecodeRange extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<? extends LuminanceSource> images;
+    private final BatchResult[] results;
+    private final int start;
+    private final int end;
+
+    DecodeRange(List<? extends LuminanceSource> images, BatchResult[] results, int start, int end) {
+      this.images = images;
+      this.results = results;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start == 1) {
+        results[start] = decode(start, images.get(start), 0L);
+      } else {
+        int middle = (start + end) >>> 1;
+        invokeAll(new DecodeRange(images, results, start, middle),
+                  new DecodeRange(images, results, middle, end));
+      }
+    }
+
+  }
+
+  private final class LoadAndDecode implements Callable<BatchResult> {
+
+    private final int index;
+    private final Callable<? extends LuminanceSource> loader;
+
+    LoadAndDecode(int index, Callable<? extends LuminanceSource> loader) {
+      this.index = index;
+      this.loader = loader;
+    }
+
+    @Override
+    public BatchResult call() {
+      long start = System.nanoTime();
+      LuminanceSource image;
+      try {
+        image = loader.call();
+      } catch (Exception e) {
+        return new BatchResult(index, null, e, System.nanoTime() - start, 0L);
+      }
+      return decode(index, image, System.nanoTime() - start);
+    }
+
+  }
+
+}
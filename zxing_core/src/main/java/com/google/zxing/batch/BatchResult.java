@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.batch;
+
+import com.google.zxing.Result;
+
+/**
+ * Outcome of decoding one image of a batch with {@link BatchDecoder}.
+ */
+public final class BatchResult {
+
+  private final int index;
+  private final Result result;
+  private final Exception exception;
+  private final long loadNanos;
+  private final long decodeNanos;
+
+  BatchResult(int index, Result result, Exception exception, long loadNanos, long decodeNanos) {
+    this.index = index;
+    this.result = result;
+    this.exception = exception;
+    this.loadNanos = loadNanos;
+    this.decodeNanos = decodeNanos;
+  }
+
+  /**
+   * @return position of the image in the batch, starting at 0
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return true if a barcode was found in the image
+   */
+  public boolean isFound() {
+    return result != null;
+  }
+
+  /**
+   * @return the decoded barcode, or null if none was found
+   */
+  public Result getResult() {
+    return result;
+  }
+
+  /**
+   * @return why no barcode was found: a {@link com.google.zxing.ReaderException} if the image was
+   *  decoded without success, a {@link RuntimeException} if the reader failed on it, or the
+   *  exception thrown while loading the image. Null if found.
+   */
+  public Exception getException() {
+    return exception;
+  }
+
+  /**
+   * @return time spent loading the image, in nanoseconds. 0 for images passed in already loaded.
+   */
+  public long getLoadNanos() {
+    return loadNanos;
+  }
+
+  /**
+   * @return time spent binarizing and decoding the image, in nanoseconds
+   */
+  public long getDecodeNanos() {
+    return decodeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return index + ": " + (result != null ? result.getBarcodeFormat() : exception) +
+        " in " + (loadNanos + decodeNanos) / 1000000 + " ms";
+  }
+
+}
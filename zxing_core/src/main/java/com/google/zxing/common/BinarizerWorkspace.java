@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+/**
+ * Scratch buffers which a {@link HybridBinarizer} can reuse across frames instead of allocating
+ * them for every image. This is intended for continuous scanning, where a stream of same-sized
+ * images is binarized one after another.
+ *
+ * The buffers, including the {@link BitMatrix} returned by the binarizer, are overwritten by the
+ * next binarization that uses the same workspace. A workspace is not thread-safe; use one per
+ * decoding thread.
+ *
+ * @see HybridBinarizer#HybridBinarizer(com.google.zxing.LuminanceSource, BinarizerWorkspace)
+ */
+public final class BinarizerWorkspace {
+
+  private byte[] luminances;
+  private int[][] blackPoints;
+  private int[][] blockStatistics;
+  private BitMatrix matrix;
+  private BitMatrix invertedMatrix;
+
+  /**
+   * @param size minimum number of luminance values
+   * @return a luminance buffer of at least the given size, with undefined contents
+   */
+  byte[] getLuminances(int size) {
+    if (luminances == null || luminances.length < size) {
+      luminances = new byte[size];
+    }
+    return luminances;
+  }
+
+  /**
+   * @return a {@code [subHeight][subWidth]} black point table, with undefined contents
+   */
+  int[][] getBlackPoints(int subWidth, int subHeight) {
+    if (blackPoints == null || blackPoints.length != subHeight || blackPoints[0].length != subWidth) {
+      blackPoints = new int[subHeight][subWidth];
+    }
+    return blackPoints;
+  }
+
+  /**
+   * @return a {@code [subHeight][subWidth]} block statistics table, with undefined contents
+   */
+  int[][] getBlockStatistics(int subWidth, int subHeight) {
+    if (blockStatistics == null || blockStatistics.length != subHeight || blockStatistics[0].length != subWidth) {
+      blockStatistics = new int[subHeight][subWidth];
+    }
+    return blockStatistics;
+  }
+
+  /**
+   * @return a cleared {@link BitMatrix} of the given size
+   */
+  BitMatrix getMatrix(int width, int height) {
+    matrix = cleared(matrix, width, height);
+    return matrix;
+  }
+
+  /**
+   * @return a cleared {@link BitMatrix} of the given size for the negative image, distinct from
+   *  the one returned by {@link #getMatrix(int, int)}
+   */
+  BitMatrix getInvertedMatrix(int width, int height) {
+    invertedMatrix = cleared(invertedMatrix, width, height);
+    return invertedMatrix;
+  }
+
+  private static BitMatrix cleared(BitMatrix matrix, int width, int height) {
+    if (matrix == null || matrix.getWidth() != width || matrix.getHeight() != height) {
+      return new BitMatrix(width, height);
+    }
+    matrix.clear();
+    return matrix;
+  }
+
+}
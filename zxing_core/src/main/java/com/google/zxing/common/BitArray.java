@@ -27,6 +27,9 @@ public final class BitArray implements Cloneable {
 
   private int[] bits;
   private int size;
+  // Cached by getRuns(); any modification invalidates them
+  private RowRuns runs;
+  private boolean runsValid;
 
   public BitArray() {
     this.size = 0;
@@ -74,6 +77,7 @@ public final class BitArray implements Cloneable {
    * @param i bit to set
    */
   public void set(int i) {
+    runsValid = false;
     bits[i / 32] |= 1 << (i & 0x1F);
   }
 
@@ -83,6 +87,7 @@ public final class BitArray implements Cloneable {
    * @param i bit to set
    */
   public void flip(int i) {
+    runsValid = false;
     bits[i / 32] ^= 1 << (i & 0x1F);
   }
 
@@ -141,6 +146,7 @@ public final class BitArray implements Cloneable {
    * corresponds to bit i, the next-least-significant to i+1, and so on.
    */
   public void setBulk(int i, int newBits) {
+    runsValid = false;
     bits[i / 32] = newBits;
   }
 
@@ -157,6 +163,7 @@ public final class BitArray implements Cloneable {
     if (end == start) {
       return;
     }
+    runsValid = false;
     end--; // will be easier to treat this as the last actually set bit -- inclusive
     int firstInt = start / 32;
     int lastInt = end / 32;
@@ -173,6 +180,7 @@ public final class BitArray implements Cloneable {
    * Clears all bits (sets to false).
    */
   public void clear() {
+    runsValid = false;
     int max = bits.length;
     for (int i = 0; i < max; i++) {
       bits[i] = 0;
@@ -214,6 +222,7 @@ public final class BitArray implements Cloneable {
   }
 
   public void appendBit(boolean bit) {
+    runsValid = false;
     ensureCapacity(size + 1);
     if (bit) {
       bits[size / 32] |= 1 << (size & 0x1F);
@@ -247,10 +256,26 @@ public final class BitArray implements Cloneable {
     }
   }
 
+  /**
+   * Flips every bit in the array. Bits past its size stay unset.
+   */
+  public void flip() {
+    runsValid = false;
+    int last = (size + 31) / 32 - 1;
+    for (int i = 0; i < last; i++) {
+      bits[i] = ~bits[i];
+    }
+    if (last >= 0) {
+      int lastMask = (size & 0x1f) == 0 ? -1 : (1 << (size & 0x1f)) - 1;
+      bits[last] = ~bits[last] & lastMask;
+    }
+  }
+
   public void xor(BitArray other) {
     if (size != other.size) {
       throw new IllegalArgumentException("Sizes don't match");
     }
+    runsValid = false;
     for (int i = 0; i < bits.length; i++) {
       // The last int could be incomplete (i.e. not have 32 bits in
       // it) but there is no problem since 0 XOR 0 == 0.
@@ -287,10 +312,29 @@ public final class BitArray implements Cloneable {
     return bits;
   }
 
+  /**
+   * Gets the runs of equal bits in this array. They are computed once and then reused until the
+   * array is modified, so several readers scanning the same row share the work. Modifying the
+   * array returned by {@link #getBitArray()} directly does not update them.
+   *
+   * @return the runs, valid until this array is modified
+   */
+  public RowRuns getRuns() {
+    if (!runsValid) {
+      if (runs == null) {
+        runs = new RowRuns(size);
+      }
+      runs.compute(this);
+      runsValid = true;
+    }
+    return runs;
+  }
+
   /**
    * Reverses all bits in the array.
    */
   public void reverse() {
+    runsValid = false;
     int[] newBits = new int[bits.length];
     // reverse all int's first
     int len = (size - 1) / 32;
@@ -35,10 +35,12 @@ import java.util.Arrays;
  */
 public final class BitMatrix implements Cloneable {
 
-  private final int width;
-  private final int height;
-  private final int rowSize;
-  private final int[] bits;
+  private int width;
+  private int height;
+  private int rowSize;
+  private int[] bits;
+  // Computes bits on first access, for a lazily binarized matrix, or null once all are computed
+  private TileLoader tileLoader;
 
   /**
    * Creates an empty square {@code BitMatrix}.
@@ -159,6 +161,10 @@ public final class BitMatrix implements Cloneable {
    */
   public boolean get(int x, int y) {
     int offset = y * rowSize + (x / 32);
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadWord(offset);
+    }
     return ((bits[offset] >>> (x & 0x1f)) & 1) != 0;
   }
 
@@ -170,11 +176,19 @@ public final class BitMatrix implements Cloneable {
    */
   public void set(int x, int y) {
     int offset = y * rowSize + (x / 32);
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadWord(offset);
+    }
     bits[offset] |= 1 << (x & 0x1f);
   }
 
   public void unset(int x, int y) {
     int offset = y * rowSize + (x / 32);
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadWord(offset);
+    }
     bits[offset] &= ~(1 << (x & 0x1f));
   }
 
@@ -186,9 +200,29 @@ public final class BitMatrix implements Cloneable {
    */
   public void flip(int x, int y) {
     int offset = y * rowSize + (x / 32);
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadWord(offset);
+    }
     bits[offset] ^= 1 << (x & 0x1f);
   }
 
+  /**
+   * <p>Flips every bit in the matrix, e.g. to turn the binarization of an image into that of its
+   * negative. Bits past the width of a row stay unset.</p>
+   */
+  public void flip() {
+    loadAll();
+    int lastMask = (width & 0x1f) == 0 ? -1 : (1 << (width & 0x1f)) - 1;
+    for (int offset = 0; offset < bits.length; offset += rowSize) {
+      int end = offset + rowSize - 1;
+      for (int i = offset; i < end; i++) {
+        bits[i] = ~bits[i];
+      }
+      bits[end] = ~bits[end] & lastMask;
+    }
+  }
+
   /**
    * Exclusive-or (XOR): Flip the bit in this {@code BitMatrix} if the corresponding
    * mask bit is set.
@@ -200,6 +234,7 @@ public final class BitMatrix implements Cloneable {
         || rowSize != mask.getRowSize()) {
       throw new IllegalArgumentException("input matrix dimensions do not match");
     }
+    loadAll();
     BitArray rowArray = new BitArray(width);
     for (int y = 0; y < height; y++) {
       int offset = y * rowSize;
@@ -214,6 +249,7 @@ public final class BitMatrix implements Cloneable {
    * Clears all bits (sets to false).
    */
   public void clear() {
+    tileLoader = null;
     int max = bits.length;
     for (int i = 0; i < max; i++) {
       bits[i] = 0;
@@ -240,12 +276,150 @@ public final class BitMatrix implements Cloneable {
     if (bottom > this.height || right > this.width) {
       throw new IllegalArgumentException("The region must fit inside the matrix");
     }
+    loadRegion(left, top, right, bottom);
+    int firstInt = left / 32;
+    int lastInt = (right - 1) / 32;
+    int firstMask = -1 << (left & 0x1f);
+    int lastMask = -1 >>> (31 - ((right - 1) & 0x1f));
+    for (int y = top; y < bottom; y++) {
+      int offset = y * rowSize;
+      for (int i = firstInt; i <= lastInt; i++) {
+        int mask = -1;
+        if (i == firstInt) {
+          mask &= firstMask;
+        }
+        if (i == lastInt) {
+          mask &= lastMask;
+        }
+        bits[offset + i] |= mask;
+      }
+    }
+  }
+
+  /**
+   * Counts the set bits in a region of the matrix, a word at a time.
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param top The vertical position to begin at (inclusive)
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return number of set bits in the region
+   */
+  public int countSetBits(int left, int top, int width, int height) {
+    if (top < 0 || left < 0) {
+      throw new IllegalArgumentException("Left and top must be nonnegative");
+    }
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width must be at least 1");
+    }
+    int right = left + width;
+    int bottom = top + height;
+    if (bottom > this.height || right > this.width) {
+      throw new IllegalArgumentException("The region must fit inside the matrix");
+    }
+    loadRegion(left, top, right, bottom);
+    int firstInt = left / 32;
+    int lastInt = (right - 1) / 32;
+    int firstMask = -1 << (left & 0x1f);
+    int lastMask = -1 >>> (31 - ((right - 1) & 0x1f));
+    int count = 0;
     for (int y = top; y < bottom; y++) {
       int offset = y * rowSize;
-      for (int x = left; x < right; x++) {
-        bits[offset + (x / 32)] |= 1 << (x & 0x1f);
+      for (int i = firstInt; i <= lastInt; i++) {
+        int theBits = bits[offset + i];
+        if (i == firstInt) {
+          theBits &= firstMask;
+        }
+        if (i == lastInt) {
+          theBits &= lastMask;
+        }
+        count += Integer.bitCount(theBits);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @param x column to start looking for a set bit at
+   * @param y row to look in
+   * @return column of the next set bit in row y at or after x, or {@code width} if there is none
+   * @see BitArray#getNextSet(int)
+   */
+  public int getNextSet(int x, int y) {
+    if (x >= width) {
+      return width;
+    }
+    loadRegion(x, y, width, y + 1);
+    int offset = y * rowSize;
+    int end = offset + rowSize;
+    int bitsOffset = offset + x / 32;
+    int currentBits = bits[bitsOffset];
+    // mask off lesser bits first
+    currentBits &= -(1 << (x & 0x1f));
+    while (currentBits == 0) {
+      if (++bitsOffset == end) {
+        return width;
+      }
+      currentBits = bits[bitsOffset];
+    }
+    int result = (bitsOffset - offset) * 32 + Integer.numberOfTrailingZeros(currentBits);
+    return Math.min(result, width);
+  }
+
+  /**
+   * @param x column to start looking for an unset bit at
+   * @param y row to look in
+   * @return column of the next unset bit in row y at or after x, or {@code width} if there is none
+   * @see #getNextSet(int, int)
+   */
+  public int getNextUnset(int x, int y) {
+    if (x >= width) {
+      return width;
+    }
+    loadRegion(x, y, width, y + 1);
+    int offset = y * rowSize;
+    int end = offset + rowSize;
+    int bitsOffset = offset + x / 32;
+    int currentBits = ~bits[bitsOffset];
+    // mask off lesser bits first
+    currentBits &= -(1 << (x & 0x1f));
+    while (currentBits == 0) {
+      if (++bitsOffset == end) {
+        return width;
       }
+      currentBits = ~bits[bitsOffset];
+    }
+    int result = (bitsOffset - offset) * 32 + Integer.numberOfTrailingZeros(currentBits);
+    return Math.min(result, width);
+  }
+
+  /**
+   * Run-length encodes one row of the matrix. Runs alternate between unset and set bits, starting
+   * with a run of unset bits at x = 0, which is empty if the row starts with a set bit.
+   *
+   * @param y The row to encode
+   * @param runLengths An optional caller-allocated array, will be allocated if null or shorter
+   *                   than {@code width + 1}
+   * @return The resulting run lengths, followed by a 0 entry unless the array is full (only the first
+   *         run can be empty) - this reference should always be used even when passing your own array
+   */
+  public int[] getRowRunLengths(int y, int[] runLengths) {
+    if (runLengths == null || runLengths.length < width + 1) {
+      runLengths = new int[width + 1];
     }
+    int runs = 0;
+    int x = 0;
+    boolean set = false;
+    while (x < width) {
+      int next = set ? getNextUnset(x, y) : getNextSet(x, y);
+      runLengths[runs++] = next - x;
+      x = next;
+      set = !set;
+    }
+    if (runs < runLengths.length) {
+      runLengths[runs] = 0;
+    }
+    return runLengths;
   }
 
   /**
@@ -262,6 +436,7 @@ public final class BitMatrix implements Cloneable {
     } else {
       row.clear();
     }
+    loadRegion(0, y, width, y + 1);
     int offset = y * rowSize;
     for (int x = 0; x < rowSize; x++) {
       row.setBulk(x * 32, bits[offset + x]);
@@ -274,6 +449,7 @@ public final class BitMatrix implements Cloneable {
    * @param row {@link BitArray} to copy from
    */
   public void setRow(int y, BitArray row) {
+    loadRegion(0, y, width, y + 1);
     System.arraycopy(row.getBitArray(), 0, bits, y * rowSize, rowSize);
   }
 
@@ -295,6 +471,108 @@ public final class BitMatrix implements Cloneable {
     }
   }
 
+  /**
+   * Modifies this {@code BitMatrix} to represent the same but rotated 90 degrees counterclockwise
+   */
+  public void rotate90() {
+    loadAll();
+    BitMatrix transposed = transpose();
+    int newRowSize = transposed.rowSize;
+    int[] newBits = transposed.bits;
+    int[] row = new int[newRowSize];
+    // Transposing mirrors along the diagonal; flipping vertically completes the rotation
+    for (int top = 0, bottom = transposed.height - 1; top < bottom; top++, bottom--) {
+      System.arraycopy(newBits, top * newRowSize, row, 0, newRowSize);
+      System.arraycopy(newBits, bottom * newRowSize, newBits, top * newRowSize, newRowSize);
+      System.arraycopy(row, 0, newBits, bottom * newRowSize, newRowSize);
+    }
+    this.width = transposed.width;
+    this.height = transposed.height;
+    this.rowSize = newRowSize;
+    this.bits = newBits;
+  }
+
+  /**
+   * Mirrors the matrix along its main diagonal, 32 x 32 bits at a time.
+   *
+   * @return new {@code BitMatrix} of {@code height} x {@code width} bits, where bit (y, x) equals
+   *         bit (x, y) of this matrix
+   */
+  public BitMatrix transpose() {
+    loadAll();
+    BitMatrix result = new BitMatrix(height, width);
+    int[] block = new int[32];
+    for (int blockY = 0; blockY < width; blockY += 32) {
+      int sourceInt = blockY / 32;
+      for (int blockX = 0; blockX < height; blockX += 32) {
+        int rows = Math.min(32, height - blockX);
+        for (int i = 0; i < rows; i++) {
+          block[i] = bits[(blockX + i) * rowSize + sourceInt];
+        }
+        Arrays.fill(block, rows, 32, 0);
+        transpose32(block);
+        int columns = Math.min(32, width - blockY);
+        int targetInt = blockX / 32;
+        for (int i = 0; i < columns; i++) {
+          result.bits[(blockY + i) * result.rowSize + targetInt] = block[i];
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Transposes a 32 x 32 block of bits in place, where bit x of block[y] is the bit at (x, y),
+   * by swapping ever smaller sub-blocks across the diagonal.
+   */
+  private static void transpose32(int[] block) {
+    int mask = 0x0000FFFF;
+    for (int j = 16; j != 0; j >>>= 1, mask ^= mask << j) {
+      for (int k = 0; k < 32; k = (k + j + 1) & ~j) {
+        int t = ((block[k] >>> j) ^ block[k + j]) & mask;
+        block[k + j] ^= t;
+        block[k] ^= t << j;
+      }
+    }
+  }
+
+  /**
+   * Renders the matrix into an array of pixels, in row-major order with a stride of {@code width}.
+   * Words with all bits equal are filled in bulk.
+   *
+   * @param pixels An optional caller-allocated array, will be allocated if null or too small
+   * @param onColor color of set bits
+   * @param offColor color of unset bits
+   * @return The resulting pixels - this reference should always be used even when passing
+   *         your own array
+   */
+  public int[] getPixels(int[] pixels, int onColor, int offColor) {
+    if (pixels == null || pixels.length < width * height) {
+      pixels = new int[width * height];
+    }
+    loadAll();
+    for (int y = 0; y < height; y++) {
+      int offset = y * width;
+      int bitsOffset = y * rowSize;
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        int theBits = bits[bitsOffset + x32];
+        int start = offset + x32 * 32;
+        int end = offset + Math.min(x32 * 32 + 32, width);
+        if (theBits == 0) {
+          Arrays.fill(pixels, start, end, offColor);
+        } else if (theBits == -1) {
+          Arrays.fill(pixels, start, end, onColor);
+        } else {
+          for (int i = start; i < end; i++) {
+            pixels[i] = (theBits & 1) != 0 ? onColor : offColor;
+            theBits >>>= 1;
+          }
+        }
+      }
+    }
+    return pixels;
+  }
+
   /**
    * This is useful in detecting the enclosing rectangle of a 'pure' barcode.
    *
@@ -305,6 +583,7 @@ public final class BitMatrix implements Cloneable {
     int top = height;
     int right = -1;
     int bottom = -1;
+    loadAll();
 
     for (int y = 0; y < height; y++) {
       for (int x32 = 0; x32 < rowSize; x32++) {
@@ -352,7 +631,7 @@ public final class BitMatrix implements Cloneable {
    */
   public int[] getTopLeftOnBit() {
     int bitsOffset = 0;
-    while (bitsOffset < bits.length && bits[bitsOffset] == 0) {
+    while (bitsOffset < bits.length && loadedWord(bitsOffset) == 0) {
       bitsOffset++;
     }
     if (bitsOffset == bits.length) {
@@ -372,7 +651,7 @@ public final class BitMatrix implements Cloneable {
 
   public int[] getBottomRightOnBit() {
     int bitsOffset = bits.length - 1;
-    while (bitsOffset >= 0 && bits[bitsOffset] == 0) {
+    while (bitsOffset >= 0 && loadedWord(bitsOffset) == 0) {
       bitsOffset--;
     }
     if (bitsOffset < 0) {
@@ -392,6 +671,46 @@ public final class BitMatrix implements Cloneable {
     return new int[] {x, y};
   }
 
+  /**
+   * Computes the bits of this matrix on first access, instead of holding them all up front.
+   * Until all bits are computed, the matrix must not be used from several threads at once.
+   *
+   * @param tileLoader computes the bits, or null if all bits are present
+   */
+  void setTileLoader(TileLoader tileLoader) {
+    this.tileLoader = tileLoader;
+  }
+
+  /**
+   * Sets bits of a word, without computing the word first. For a {@link TileLoader} to store the
+   * bits it computes.
+   */
+  void orWord(int offset, int word) {
+    bits[offset] |= word;
+  }
+
+  private int loadedWord(int offset) {
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadWord(offset);
+    }
+    return bits[offset];
+  }
+
+  private void loadRegion(int left, int top, int right, int bottom) {
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadRegion(left, top, right, bottom);
+    }
+  }
+
+  private void loadAll() {
+    TileLoader loader = tileLoader;
+    if (loader != null) {
+      loader.loadAll();
+    }
+  }
+
   /**
    * @return The width of the matrix
    */
@@ -419,12 +738,15 @@ public final class BitMatrix implements Cloneable {
       return false;
     }
     BitMatrix other = (BitMatrix) o;
+    loadAll();
+    other.loadAll();
     return width == other.width && height == other.height && rowSize == other.rowSize &&
     Arrays.equals(bits, other.bits);
   }
 
   @Override
   public int hashCode() {
+    loadAll();
     int hash = width;
     hash = 31 * hash + width;
     hash = 31 * hash + height;
@@ -475,6 +797,7 @@ public final class BitMatrix implements Cloneable {
 
   @Override
   public BitMatrix clone() {
+    loadAll();
     return new BitMatrix(width, height, rowSize, bits.clone());
   }
 
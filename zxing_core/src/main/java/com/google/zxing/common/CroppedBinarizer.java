@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>Binarizes a region of an image from the work already done by another {@link Binarizer} for
+ * the whole image, instead of binarizing the cropped luminances again. This lets a search which
+ * recurses into parts of an image, like
+ * {@link com.google.zxing.multi.GenericMultipleBarcodeReader}, binarize the image once.</p>
+ *
+ * <p>The 1 bit data are those of the whole image, rows and matrix alike. The matrix of the other
+ * binarizer is computed once if it keeps it, as {@link HybridBinarizer} does.</p>
+ */
+public final class CroppedBinarizer extends Binarizer {
+
+  private final Binarizer delegate;
+  private final int left;
+  private final int top;
+  private BitArray delegateRow;
+  private BitMatrix matrix;
+
+  public CroppedBinarizer(Binarizer delegate, int left, int top, int width, int height) {
+    super(delegate.getLuminanceSource().crop(left, top, width, height));
+    if (delegate instanceof CroppedBinarizer) {
+      // Crop the whole image directly, so that nested crops share its binarizer too
+      CroppedBinarizer cropped = (CroppedBinarizer) delegate;
+      delegate = cropped.delegate;
+      left += cropped.left;
+      top += cropped.top;
+    }
+    this.delegate = delegate;
+    this.left = left;
+    this.top = top;
+  }
+
+  @Override
+  public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+    int width = getWidth();
+    if (row == null || row.getSize() < width) {
+      row = new BitArray(width);
+    } else {
+      row.clear();
+    }
+    delegateRow = delegate.getBlackRow(top + y, delegateRow);
+    copyRange(delegateRow, left, width, row);
+    return row;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (matrix == null) {
+      BitMatrix whole = delegate.getBlackMatrix();
+      int width = getWidth();
+      int height = getHeight();
+      BitMatrix cropped = new BitMatrix(width, height);
+      BitArray wholeRow = null;
+      BitArray row = new BitArray(width);
+      for (int y = 0; y < height; y++) {
+        wholeRow = whole.getRow(top + y, wholeRow);
+        row.clear();
+        copyRange(wholeRow, left, width, row);
+        cropped.setRow(y, row);
+      }
+      matrix = cropped;
+    }
+    return matrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return delegate.createBinarizer(source);
+  }
+
+  /**
+   * Sets the bits of {@code to} which are set in {@code from}, starting at {@code offset}.
+   */
+  private static void copyRange(BitArray from, int offset, int width, BitArray to) {
+    int end = offset + width;
+    int start = from.getNextSet(offset);
+    while (start < end) {
+      int runEnd = Math.min(from.getNextUnset(start), end);
+      to.setRange(start - offset, runEnd - offset);
+      start = from.getNextSet(runEnd);
+    }
+  }
+
+}
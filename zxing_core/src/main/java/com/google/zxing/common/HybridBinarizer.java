@@ -20,6 +20,8 @@ import com.google.zxing.Binarizer;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.NotFoundException;
 
+import java.util.Arrays;
+
 /**
  * This class implements a local thresholding algorithm, which while slower than the
  * GlobalHistogramBinarizer, is fairly efficient for what it does. It is designed for
@@ -47,10 +49,47 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
   private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
   private static final int MIN_DYNAMIC_RANGE = 24;
 
+  private final BinarizerWorkspace workspace;
+  private final boolean lazy;
   private BitMatrix matrix;
+  private BitMatrix invertedMatrix;
+
+  // Kept from getBlackMatrix() for getInvertedBlackMatrix()
+  private byte[] luminances;
+  private int[][] blockStatistics;
+  private LazyTiles lazyTiles;
 
   public HybridBinarizer(LuminanceSource source) {
+    this(source, null);
+  }
+
+  /**
+   * Creates a binarizer which takes its working buffers and output matrix from the given
+   * workspace, so that binarizing a series of same-sized images does not allocate per image.
+   * The returned {@link BitMatrix} is only valid until the workspace is used again.
+   *
+   * @param source the luminance source to binarize
+   * @param workspace buffers to reuse, or null to allocate new ones
+   */
+  public HybridBinarizer(LuminanceSource source, BinarizerWorkspace workspace) {
+    this(source, workspace, false);
+  }
+
+  /**
+   * Creates a binarizer which may compute the black matrix lazily. A lazy matrix is binarized a
+   * tile of 32 x 32 pixels at a time, when its bits are first read, so that parts of a large
+   * image which detectors never look at are never binarized. The bits are the same as those of
+   * a matrix computed up front. Until all its tiles are read, a lazy matrix must not be read
+   * from several threads at once.
+   *
+   * @param source the luminance source to binarize
+   * @param workspace buffers to reuse, or null to allocate new ones
+   * @param lazy true to compute the black matrix on demand
+   */
+  public HybridBinarizer(LuminanceSource source, BinarizerWorkspace workspace, boolean lazy) {
     super(source);
+    this.workspace = workspace;
+    this.lazy = lazy;
   }
 
   /**
@@ -67,7 +106,8 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     int width = source.getWidth();
     int height = source.getHeight();
     if (width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
-      byte[] luminances = source.getMatrix();
+      byte[] luminances = workspace == null ? source.getMatrix() :
+          source.getMatrix(workspace.getLuminances(width * height));
       int subWidth = width >> BLOCK_SIZE_POWER;
       if ((width & BLOCK_SIZE_MASK) != 0) {
         subWidth++;
@@ -76,11 +116,22 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
       if ((height & BLOCK_SIZE_MASK) != 0) {
         subHeight++;
       }
-      int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
-
-      BitMatrix newMatrix = new BitMatrix(width, height);
-      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, newMatrix);
+      int[][] statistics = workspace == null ? new int[subHeight][subWidth] :
+          workspace.getBlockStatistics(subWidth, subHeight);
+      int[][] blackPoints = workspace == null ? new int[subHeight][subWidth] :
+          workspace.getBlackPoints(subWidth, subHeight);
+      BitMatrix newMatrix = workspace == null ? new BitMatrix(width, height) : workspace.getMatrix(width, height);
+      if (lazy) {
+        lazyTiles = new LazyTiles(luminances, subWidth, subHeight, width, height, statistics, blackPoints, newMatrix);
+        newMatrix.setTileLoader(lazyTiles);
+      } else {
+        calculateBlockStatistics(luminances, subWidth, subHeight, width, height, statistics);
+        calculateBlackPoints(statistics, subWidth, subHeight, false, blackPoints);
+        calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, false, newMatrix);
+      }
       matrix = newMatrix;
+      this.luminances = luminances;
+      this.blockStatistics = statistics;
     } else {
       // If the image is too small, fall back to the global histogram approach.
       matrix = super.getBlackMatrix();
@@ -88,9 +139,49 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     return matrix;
   }
 
+  /**
+   * Binarizes the negative of the image, as a HybridBinarizer of the inverted luminance source
+   * would, but without reading the luminances and computing the block statistics again. This is
+   * for decoding light barcodes on a dark background, after dark ones were searched with
+   * {@link #getBlackMatrix()}. With a workspace, the matrix is only valid until the workspace is
+   * used again.
+   *
+   * @return the 2D array of bits for the negative image (true means black in the negative)
+   * @throws NotFoundException if image can't be binarized to make a matrix
+   */
+  public BitMatrix getInvertedBlackMatrix() throws NotFoundException {
+    if (invertedMatrix != null) {
+      return invertedMatrix;
+    }
+    BitMatrix normal = getBlackMatrix();
+    if (blockStatistics == null) {
+      // Too small for blocks; the global histogram is nearly symmetric
+      invertedMatrix = normal.clone();
+      invertedMatrix.flip();
+      return invertedMatrix;
+    }
+    int width = getWidth();
+    int height = getHeight();
+    int subHeight = blockStatistics.length;
+    int subWidth = blockStatistics[0].length;
+    if (lazyTiles != null) {
+      lazyTiles.calculateAllStatistics();
+    }
+    // A lazy matrix still needs its own black points
+    int[][] blackPoints = workspace == null || lazyTiles != null ? new int[subHeight][subWidth] :
+        workspace.getBlackPoints(subWidth, subHeight);
+    calculateBlackPoints(blockStatistics, subWidth, subHeight, true, blackPoints);
+    BitMatrix newMatrix = workspace == null ? new BitMatrix(width, height) :
+        workspace.getInvertedMatrix(width, height);
+    calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, true, newMatrix);
+    invertedMatrix = newMatrix;
+    return invertedMatrix;
+  }
+
+  // The new binarizer does not share the workspace, since its matrix may be used alongside this one.
   @Override
   public Binarizer createBinarizer(LuminanceSource source) {
-    return new HybridBinarizer(source);
+    return new HybridBinarizer(source, null, lazy);
   }
 
   /**
@@ -104,6 +195,7 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
                                                  int width,
                                                  int height,
                                                  int[][] blackPoints,
+                                                 boolean inverted,
                                                  BitMatrix matrix) {
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
@@ -119,13 +211,12 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
           xoffset = maxXOffset;
         }
         int left = cap(x, subWidth - 3);
-        int sum = 0;
-        for (int z = -2; z <= 2; z++) {
-          int[] blackRow = blackPoints[top + z];
-          sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
+        int average = averageBlackPoint(blackPoints, left, top);
+        if (inverted) {
+          thresholdInvertedBlock(luminances, xoffset, yoffset, average, width, matrix);
+        } else {
+          thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
         }
-        int average = sum / 25;
-        thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
       }
     }
   }
@@ -134,6 +225,18 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     return value < 2 ? 2 : Math.min(value, max);
   }
 
+  /**
+   * @return the average black point of the 5x5 blocks centered on the given block
+   */
+  private static int averageBlackPoint(int[][] blackPoints, int left, int top) {
+    int sum = 0;
+    for (int z = -2; z <= 2; z++) {
+      int[] blackRow = blackPoints[top + z];
+      sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
+    }
+    return sum / 25;
+  }
+
   /**
    * Applies a single threshold to a block of pixels.
    */
@@ -154,18 +257,38 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
   }
 
   /**
-   * Calculates a single black point for each block of pixels and saves it away.
-   * See the following thread for a discussion of this algorithm:
-   *  http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
+   * Applies a single threshold to a block of pixels of the negative image.
+   */
+  private static void thresholdInvertedBlock(byte[] luminances,
+                                             int xoffset,
+                                             int yoffset,
+                                             int threshold,
+                                             int stride,
+                                             BitMatrix matrix) {
+    // A negative pixel 255 - p is black if 255 - p <= threshold
+    int minimum = 0xFF - threshold;
+    for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
+      for (int x = 0; x < BLOCK_SIZE; x++) {
+        if ((luminances[offset + x] & 0xFF) >= minimum) {
+          matrix.set(xoffset + x, yoffset + y);
+        }
+      }
+    }
+  }
+
+  /**
+   * Calculates the sum, minimum and maximum of each block of pixels, packed into an int as
+   * {@code sum << 16 | min << 8 | max}. Once the dynamic range of a block is met, its minimum and
+   * maximum are no longer tracked, since only the range matters then.
    */
-  private static int[][] calculateBlackPoints(byte[] luminances,
-                                              int subWidth,
-                                              int subHeight,
-                                              int width,
-                                              int height) {
+  private static void calculateBlockStatistics(byte[] luminances,
+                                               int subWidth,
+                                               int subHeight,
+                                               int width,
+                                               int height,
+                                               int[][] statistics) {
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
-    int[][] blackPoints = new int[subHeight][subWidth];
     for (int y = 0; y < subHeight; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       if (yoffset > maxYOffset) {
@@ -176,62 +299,284 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
         if (xoffset > maxXOffset) {
           xoffset = maxXOffset;
         }
-        int sum = 0;
-        int min = 0xFF;
-        int max = 0;
-        for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+        statistics[y][x] = calculateBlockStatistics(luminances, xoffset, yoffset, width);
+      }
+    }
+  }
+
+  private static int calculateBlockStatistics(byte[] luminances, int xoffset, int yoffset, int width) {
+    int sum = 0;
+    int min = 0xFF;
+    int max = 0;
+    for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+      for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+        int pixel = luminances[offset + xx] & 0xFF;
+        sum += pixel;
+        // still looking for good contrast
+        if (pixel < min) {
+          min = pixel;
+        }
+        if (pixel > max) {
+          max = pixel;
+        }
+      }
+      // short-circuit min/max tests once dynamic range is met
+      if (max - min > MIN_DYNAMIC_RANGE) {
+        // finish the rest of the rows quickly
+        for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
           for (int xx = 0; xx < BLOCK_SIZE; xx++) {
-            int pixel = luminances[offset + xx] & 0xFF;
-            sum += pixel;
-            // still looking for good contrast
-            if (pixel < min) {
-              min = pixel;
-            }
-            if (pixel > max) {
-              max = pixel;
-            }
+            sum += luminances[offset + xx] & 0xFF;
           }
-          // short-circuit min/max tests once dynamic range is met
-          if (max - min > MIN_DYNAMIC_RANGE) {
-            // finish the rest of the rows quickly
-            for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
+        }
+      }
+    }
+    return (sum << 16) | (min << 8) | max;
+  }
+
+  /**
+   * Calculates a single black point for each block of pixels and saves it away.
+   * See the following thread for a discussion of this algorithm:
+   *  http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
+   *
+   * @param inverted true to calculate the black points of the negative image
+   */
+  private static void calculateBlackPoints(int[][] statistics,
+                                           int subWidth,
+                                           int subHeight,
+                                           boolean inverted,
+                                           int[][] blackPoints) {
+    for (int y = 0; y < subHeight; y++) {
+      int[] statisticsRow = statistics[y];
+      for (int x = 0; x < subWidth; x++) {
+        blackPoints[y][x] = calculateBlackPoint(statisticsRow[x], inverted, blackPoints, x, y);
+      }
+    }
+  }
+
+  /**
+   * Calculates the black point of one block. For a low contrast block, this reads the black points
+   * of the blocks above and to its left, which must have been calculated already.
+   */
+  private static int calculateBlackPoint(int packed, boolean inverted, int[][] blackPoints, int x, int y) {
+    int sum = packed >>> 16;
+    int min = (packed >> 8) & 0xFF;
+    int max = packed & 0xFF;
+    if (inverted) {
+      sum = (0xFF << (BLOCK_SIZE_POWER * 2)) - sum;
+      int negativeMin = 0xFF - max;
+      max = 0xFF - min;
+      min = negativeMin;
+    }
+
+    // The default estimate is the average of the values in the block.
+    int average = sum >> (BLOCK_SIZE_POWER * 2);
+    if (max - min <= MIN_DYNAMIC_RANGE) {
+      // If variation within the block is low, assume this is a block with only light or only
+      // dark pixels. In that case we do not want to use the average, as it would divide this
+      // low contrast area into black and white pixels, essentially creating data out of noise.
+      //
+      // The default assumption is that the block is light/background. Since no estimate for
+      // the level of dark pixels exists locally, use half the min for the block.
+      average = min / 2;
+
+      if (y > 0 && x > 0) {
+        // Correct the "white background" assumption for blocks that have neighbors by comparing
+        // the pixels in this block to the previously calculated black points. This is based on
+        // the fact that dark barcode symbology is always surrounded by some amount of light
+        // background for which reasonable black point estimates were made. The bp estimated at
+        // the boundaries is used for the interior.
+
+        // The (min < bp) is arbitrary but works better than other heuristics that were tried.
+        int averageNeighborBlackPoint =
+            (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+        if (min < averageNeighborBlackPoint) {
+          average = averageNeighborBlackPoint;
+        }
+      }
+    }
+    return average;
+  }
+
+  private static boolean isLowContrast(int packed) {
+    return (packed & 0xFF) - ((packed >> 8) & 0xFF) <= MIN_DYNAMIC_RANGE;
+  }
+
+  /**
+   * Binarizes the tiles of a lazy matrix as they are read, calculating only the block statistics
+   * and black points they need. The results are the same as calculating all of them up front.
+   */
+  private static final class LazyTiles extends TileLoader {
+
+    private static final int UNKNOWN = -1;
+
+    private final byte[] luminances;
+    private final int subWidth;
+    private final int subHeight;
+    private final int width;
+    private final int height;
+    private final int[][] statistics;
+    private final int[][] blackPoints;
+    private final BitMatrix matrix;
+    private final int[] tileWords = new int[TILE_SIZE];
+    // Number of leading blocks of each row whose black points are all known
+    private final int[] knownBlocks;
+
+    LazyTiles(byte[] luminances,
+              int subWidth,
+              int subHeight,
+              int width,
+              int height,
+              int[][] statistics,
+              int[][] blackPoints,
+              BitMatrix matrix) {
+      super(matrix);
+      this.luminances = luminances;
+      this.subWidth = subWidth;
+      this.subHeight = subHeight;
+      this.width = width;
+      this.height = height;
+      this.statistics = statistics;
+      this.blackPoints = blackPoints;
+      this.matrix = matrix;
+      this.knownBlocks = new int[subHeight];
+      for (int y = 0; y < subHeight; y++) {
+        Arrays.fill(statistics[y], UNKNOWN);
+        Arrays.fill(blackPoints[y], UNKNOWN);
+      }
+    }
+
+    @Override
+    void computeTile(int tileX, int tileY) {
+      int tileLeft = tileX << TILE_SIZE_POWER;
+      int tileTop = tileY << TILE_SIZE_POWER;
+      int tileRight = Math.min(width, tileLeft + TILE_SIZE);
+      int tileBottom = Math.min(height, tileTop + TILE_SIZE);
+      if (tileRight <= tileLeft) {
+        // Only padding bits past the width
+        return;
+      }
+      int maxYOffset = height - BLOCK_SIZE;
+      int maxXOffset = width - BLOCK_SIZE;
+      int[] words = tileWords;
+      Arrays.fill(words, 0);
+
+      // The last block in each direction is moved back to fit in the image, so it may overlap
+      // the tile even if it starts past it.
+      int lastBlockY = Math.min(subHeight - 1, ((tileBottom - 1) >> BLOCK_SIZE_POWER) + 1);
+      int lastBlockX = Math.min(subWidth - 1, ((tileRight - 1) >> BLOCK_SIZE_POWER) + 1);
+      for (int y = tileTop >> BLOCK_SIZE_POWER; y <= lastBlockY; y++) {
+        int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+        int top = Math.max(yoffset, tileTop);
+        int bottom = Math.min(yoffset + BLOCK_SIZE, tileBottom);
+        if (top >= bottom) {
+          continue;
+        }
+        for (int x = tileLeft >> BLOCK_SIZE_POWER; x <= lastBlockX; x++) {
+          int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+          int left = Math.max(xoffset, tileLeft);
+          int right = Math.min(xoffset + BLOCK_SIZE, tileRight);
+          if (left >= right) {
+            continue;
+          }
+          int threshold = threshold(x, y);
+          if (right - left == BLOCK_SIZE && bottom - top == BLOCK_SIZE) {
+            // The whole block is in the tile
+            int shift = xoffset & 0x1f;
+            for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+              int word = 0;
               for (int xx = 0; xx < BLOCK_SIZE; xx++) {
-                sum += luminances[offset + xx] & 0xFF;
+                if ((luminances[offset + xx] & 0xFF) <= threshold) {
+                  word |= 1 << xx;
+                }
               }
+              words[yoffset - tileTop + yy] |= word << shift;
             }
+            continue;
+          }
+          for (int yy = top; yy < bottom; yy++) {
+            int offset = yy * width;
+            int word = 0;
+            for (int xx = left; xx < right; xx++) {
+              // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
+              if ((luminances[offset + xx] & 0xFF) <= threshold) {
+                word |= 1 << (xx & 0x1f);
+              }
+            }
+            words[yy - tileTop] |= word;
           }
         }
+      }
 
-        // The default estimate is the average of the values in the block.
-        int average = sum >> (BLOCK_SIZE_POWER * 2);
-        if (max - min <= MIN_DYNAMIC_RANGE) {
-          // If variation within the block is low, assume this is a block with only light or only
-          // dark pixels. In that case we do not want to use the average, as it would divide this
-          // low contrast area into black and white pixels, essentially creating data out of noise.
-          //
-          // The default assumption is that the block is light/background. Since no estimate for
-          // the level of dark pixels exists locally, use half the min for the block.
-          average = min / 2;
-
-          if (y > 0 && x > 0) {
-            // Correct the "white background" assumption for blocks that have neighbors by comparing
-            // the pixels in this block to the previously calculated black points. This is based on
-            // the fact that dark barcode symbology is always surrounded by some amount of light
-            // background for which reasonable black point estimates were made. The bp estimated at
-            // the boundaries is used for the interior.
-
-            // The (min < bp) is arbitrary but works better than other heuristics that were tried.
-            int averageNeighborBlackPoint =
-                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
-            if (min < averageNeighborBlackPoint) {
-              average = averageNeighborBlackPoint;
+      int rowSize = matrix.getRowSize();
+      for (int y = tileTop; y < tileBottom; y++) {
+        matrix.orWord(y * rowSize + tileX, words[y - tileTop]);
+      }
+    }
+
+    @Override
+    void computeAll() {
+      calculateBlockStatistics(luminances, subWidth, subHeight, width, height, statistics);
+      calculateBlackPoints(statistics, subWidth, subHeight, false, blackPoints);
+      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, false, matrix);
+    }
+
+    /**
+     * Completes the block statistics, for binarizing the negative image.
+     */
+    void calculateAllStatistics() {
+      for (int y = 0; y < subHeight; y++) {
+        for (int x = 0; x < subWidth; x++) {
+          statistics(x, y);
+        }
+      }
+    }
+
+    private int threshold(int x, int y) {
+      int top = cap(y, subHeight - 3);
+      int left = cap(x, subWidth - 3);
+      for (int z = -2; z <= 2; z++) {
+        for (int w = -2; w <= 2; w++) {
+          if (blackPoints[top + z][left + w] == UNKNOWN) {
+            calculateBlackPoint(left + w, top + z);
+          }
+        }
+      }
+      return averageBlackPoint(blackPoints, left, top);
+    }
+
+    private int statistics(int x, int y) {
+      int packed = statistics[y][x];
+      if (packed == UNKNOWN) {
+        int yoffset = Math.min(y << BLOCK_SIZE_POWER, height - BLOCK_SIZE);
+        int xoffset = Math.min(x << BLOCK_SIZE_POWER, width - BLOCK_SIZE);
+        packed = calculateBlockStatistics(luminances, xoffset, yoffset, width);
+        statistics[y][x] = packed;
+      }
+      return packed;
+    }
+
+    private void calculateBlackPoint(int x, int y) {
+      int packed = statistics(x, y);
+      if (y > 0 && x > 0 && isLowContrast(packed)) {
+        // A low contrast block depends on the black points above and to its left, which may depend
+        // on theirs in turn. Calculate all blocks above and to the left row by row, so that each
+        // finds those of its neighbors calculated.
+        for (int row = 0; row <= y; row++) {
+          int end = row < y ? x + 1 : x;
+          int[] blackRow = blackPoints[row];
+          for (int column = knownBlocks[row]; column < end; column++) {
+            if (blackRow[column] == UNKNOWN) {
+              blackRow[column] = HybridBinarizer.calculateBlackPoint(statistics(column, row), false, blackPoints, column, row);
             }
           }
+          if (knownBlocks[row] < end) {
+            knownBlocks[row] = end;
+          }
         }
-        blackPoints[y][x] = average;
       }
+      blackPoints[y][x] = HybridBinarizer.calculateBlackPoint(packed, false, blackPoints, x, y);
     }
-    return blackPoints;
+
   }
 
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>Binarizes the negative of an image from the work already done by another {@link Binarizer},
+ * instead of inverting the luminances and binarizing them again. This finds light barcodes on a
+ * dark background after dark ones were searched with the other binarizer.</p>
+ *
+ * <p>With a {@link HybridBinarizer}, the 2D result is the same as that of binarizing an
+ * {@link com.google.zxing.InvertedLuminanceSource}, reusing its block statistics. Otherwise, and
+ * for 1D rows, the bits of the other binarizer are flipped, which differs only in low contrast
+ * areas and for pixels exactly at the threshold.</p>
+ */
+public final class InvertedBinarizer extends Binarizer {
+
+  private final Binarizer delegate;
+  private BitMatrix matrix;
+
+  public InvertedBinarizer(Binarizer delegate) {
+    super(delegate.getLuminanceSource().invert());
+    this.delegate = delegate;
+  }
+
+  @Override
+  public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+    row = delegate.getBlackRow(y, row);
+    row.flip();
+    return row;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (matrix == null) {
+      if (delegate instanceof HybridBinarizer) {
+        matrix = ((HybridBinarizer) delegate).getInvertedBlackMatrix();
+      } else {
+        matrix = delegate.getBlackMatrix().clone();
+        matrix.flip();
+      }
+    }
+    return matrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new InvertedBinarizer(delegate.createBinarizer(source.invert()));
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.common;
+
+/**
+ * <p>The runs of equal bits in a {@link BitArray}, e.g. the bars and spaces of a row of a 1D
+ * barcode. Runs alternate between set and unset bits, and are numbered from 0.</p>
+ *
+ * <p>The 1D readers each walk the same row many times, looking for their start patterns and then
+ * reading one character after another. Looking up runs here is much cheaper than counting bits
+ * again each time.</p>
+ *
+ * @see BitArray#getRuns()
+ */
+public final class RowRuns {
+
+  private int size;
+  private boolean firstSet;
+  private int runCount;
+  // Start of each run, followed by size
+  private int[] starts;
+
+  RowRuns(int size) {
+    starts = new int[size + 1];
+  }
+
+  /**
+   * Recomputes the runs from the given row, a word at a time.
+   */
+  void compute(BitArray row) {
+    int size = row.getSize();
+    if (starts.length < size + 1) {
+      starts = new int[size + 1];
+    }
+    this.size = size;
+    firstSet = size > 0 && row.get(0);
+    int count = 0;
+    int position = 0;
+    boolean set = firstSet;
+    while (position < size) {
+      starts[count++] = position;
+      position = set ? row.getNextUnset(position) : row.getNextSet(position);
+      set = !set;
+    }
+    starts[count] = size;
+    runCount = count;
+  }
+
+  /**
+   * @return number of bits in the row
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return number of runs in the row
+   */
+  public int getRunCount() {
+    return runCount;
+  }
+
+  /**
+   * @param position bit in the row
+   * @return run containing the bit
+   */
+  public int getRunAt(int position) {
+    if (position < 0 || position >= size) {
+      throw new IllegalArgumentException("Position is outside the row: " + position);
+    }
+    int low = 0;
+    int high = runCount - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (starts[middle] <= position) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return first bit of the run
+   */
+  public int getRunStart(int run) {
+    return starts[run];
+  }
+
+  /**
+   * @return bit after the last bit of the run
+   */
+  public int getRunEnd(int run) {
+    return starts[run + 1];
+  }
+
+  /**
+   * @return number of bits in the run
+   */
+  public int getRunLength(int run) {
+    return starts[run + 1] - starts[run];
+  }
+
+  /**
+   * @return true if the bits of the run are set
+   */
+  public boolean isSet(int run) {
+    return firstSet == ((run & 0x01) == 0);
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+/**
+ * <p>Computes the bits of a {@link BitMatrix} on first access, so that the parts of an image
+ * which are never read are never binarized.</p>
+ *
+ * <p>Bits are computed in tiles of 32 x 32, which line up with the words of the matrix: tile
+ * {@code (tileX, tileY)} is word {@code tileX} of rows {@code 32 * tileY} to
+ * {@code 32 * tileY + 31}. Once all tiles are computed, the matrix drops its loader.</p>
+ */
+abstract class TileLoader {
+
+  static final int TILE_SIZE_POWER = 5;
+  static final int TILE_SIZE = 1 << TILE_SIZE_POWER;
+
+  private final BitMatrix matrix;
+  private final int rowSize;
+  private final int height;
+  // One flag per word of the matrix, so that checking a word takes no arithmetic
+  private final boolean[] loadedWords;
+  private final int totalTiles;
+  private int remainingTiles;
+
+  TileLoader(BitMatrix matrix) {
+    this.matrix = matrix;
+    this.rowSize = matrix.getRowSize();
+    this.height = matrix.getHeight();
+    this.loadedWords = new boolean[rowSize * height];
+    this.totalTiles = rowSize * ((height + TILE_SIZE - 1) >> TILE_SIZE_POWER);
+    this.remainingTiles = totalTiles;
+  }
+
+  /**
+   * Computes the bits of one tile into the matrix, with {@link BitMatrix#orWord(int, int)}.
+   */
+  abstract void computeTile(int tileX, int tileY);
+
+  /**
+   * Computes all bits into the matrix at once, which is faster than tile by tile. This is only
+   * called before any tile is computed, after the matrix has dropped its loader.
+   */
+  abstract void computeAll();
+
+  /**
+   * Ensures that the word at the given offset in the matrix is computed.
+   *
+   * @throws ArrayIndexOutOfBoundsException if the offset is outside the matrix, as reading the
+   *  word would
+   */
+  final void loadWord(int offset) {
+    if (!loadedWords[offset]) {
+      loadTile(offset % rowSize, (offset / rowSize) >> TILE_SIZE_POWER);
+    }
+  }
+
+  /**
+   * Ensures that all words overlapping a region are computed. The region is clipped to the matrix.
+   */
+  final void loadRegion(int left, int top, int right, int bottom) {
+    int firstTileX = Math.max(0, left) / 32;
+    int lastTileX = Math.min(rowSize * 32, right) - 1;
+    int firstTileY = Math.max(0, top) >> TILE_SIZE_POWER;
+    int lastTileY = Math.min(height, bottom) - 1;
+    if (lastTileX < 0 || lastTileY < 0) {
+      return;
+    }
+    lastTileX /= 32;
+    lastTileY >>= TILE_SIZE_POWER;
+    for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+      for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+        if (!loadedWords[(tileY << TILE_SIZE_POWER) * rowSize + tileX]) {
+          loadTile(tileX, tileY);
+        }
+      }
+    }
+  }
+
+  final void loadAll() {
+    if (remainingTiles == totalTiles) {
+      remainingTiles = 0;
+      matrix.setTileLoader(null);
+      computeAll();
+    } else {
+      loadRegion(0, 0, rowSize * 32, height);
+    }
+  }
+
+  private void loadTile(int tileX, int tileY) {
+    int top = tileY << TILE_SIZE_POWER;
+    int bottom = Math.min(height, top + TILE_SIZE);
+    for (int y = top; y < bottom; y++) {
+      loadedWords[y * rowSize + tileX] = true;
+    }
+    computeTile(tileX, tileY);
+    if (--remainingTiles == 0) {
+      matrix.setTileLoader(null);
+    }
+  }
+
+}
@@ -62,10 +62,12 @@ public final class GenericGF {
     this.size = size;
     this.generatorBase = b;
 
-    expTable = new int[size];
+    // The exp table covers twice the multiplicative group, so that the sum of two logs
+    // can be looked up without reducing it modulo (size - 1)
+    expTable = new int[2 * size];
     logTable = new int[size];
     int x = 1;
-    for (int i = 0; i < size; i++) {
+    for (int i = 0; i < expTable.length; i++) {
       expTable[i] = x;
       x *= 2; // we're assuming the generator alpha is 2
       if (x >= size) {
@@ -147,7 +149,21 @@ public final class GenericGF {
     if (a == 0 || b == 0) {
       return 0;
     }
-    return expTable[(logTable[a] + logTable[b]) % (size - 1)];
+    return expTable[logTable[a] + logTable[b]];
+  }
+
+  /**
+   * @return powers of 2 in GF(size), for exponents from 0 to {@code 2 * size - 1}. Not to be modified.
+   */
+  int[] getExpTable() {
+    return expTable;
+  }
+
+  /**
+   * @return base 2 logs in GF(size), where the entry for 0 is meaningless. Not to be modified.
+   */
+  int[] getLogTable() {
+    return logTable;
   }
 
   public int getSize() {
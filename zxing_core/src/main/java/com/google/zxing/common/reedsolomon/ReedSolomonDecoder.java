@@ -51,31 +51,47 @@ public final class ReedSolomonDecoder {
    * codewords. Really, this means it uses Reed-Solomon to detect and correct errors, in-place,
    * in the input.</p>
    *
+   * <p>Input without errors, the common case, costs only the syndrome computation. Otherwise the
+   * error locator is found with the Berlekamp-Massey algorithm, on plain {@code int[]}
+   * polynomials stored lowest degree first. Only if that finds more errors than can be corrected
+   * unambiguously does decoding fall back to the Euclidean algorithm, which occasionally
+   * recovers one extra error when the number of error-correction codewords is odd.</p>
+   *
    * @param received data and error-correction codewords
    * @param twoS number of error-correction codewords available
    * @throws ReedSolomonException if decoding fails for any reason
    */
   public void decode(int[] received, int twoS) throws ReedSolomonException {
-    GenericGFPoly poly = new GenericGFPoly(field, received);
-    int[] syndromeCoefficients = new int[twoS];
-    boolean noError = true;
-    for (int i = 0; i < twoS; i++) {
-      int eval = poly.evaluateAt(field.exp(i + field.getGeneratorBase()));
-      syndromeCoefficients[syndromeCoefficients.length - 1 - i] = eval;
-      if (eval != 0) {
-        noError = false;
-      }
+    int[] syndromes = new int[twoS];
+    if (!computeSyndromes(received, syndromes)) {
+      return;
     }
-    if (noError) {
+
+    int[] sigma = new int[twoS + 1];
+    int numErrors = runBerlekampMassey(syndromes, sigma);
+    int[] errorLocations = numErrors > 0 ? findErrorLocations(sigma, numErrors, received.length) : null;
+    if (errorLocations != null) {
+      int[] omega = computeErrorEvaluator(syndromes, sigma, numErrors);
+      int[] errorMagnitudes = findErrorMagnitudes(omega, errorLocations);
+      for (int i = 0; i < errorLocations.length; i++) {
+        int position = received.length - 1 - field.log(errorLocations[i]);
+        received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
+      }
       return;
     }
+
+    // Syndrome coefficients are stored highest degree first in GenericGFPoly
+    int[] syndromeCoefficients = new int[twoS];
+    for (int i = 0; i < twoS; i++) {
+      syndromeCoefficients[twoS - 1 - i] = syndromes[i];
+    }
     GenericGFPoly syndrome = new GenericGFPoly(field, syndromeCoefficients);
     GenericGFPoly[] sigmaOmega =
         runEuclideanAlgorithm(field.buildMonomial(twoS, 1), syndrome, twoS);
-    GenericGFPoly sigma = sigmaOmega[0];
-    GenericGFPoly omega = sigmaOmega[1];
-    int[] errorLocations = findErrorLocations(sigma);
-    int[] errorMagnitudes = findErrorMagnitudes(omega, errorLocations);
+    GenericGFPoly sigmaPoly = sigmaOmega[0];
+    GenericGFPoly omegaPoly = sigmaOmega[1];
+    errorLocations = findErrorLocations(sigmaPoly);
+    int[] errorMagnitudes = findErrorMagnitudes(omegaPoly, errorLocations);
     for (int i = 0; i < errorLocations.length; i++) {
       int position = received.length - 1 - field.log(errorLocations[i]);
       if (position < 0) {
@@ -85,6 +101,180 @@ public final class ReedSolomonDecoder {
     }
   }
 
+  /**
+   * Evaluates the received polynomial at a^(i + generatorBase) for each syndrome i.
+   *
+   * Rather than by Horner's method, where each step depends on the previous one, the terms are
+   * added up one codeword at a time: the term of codeword c at power p contributes
+   * c * a^((i + generatorBase) * p) to syndrome i, whose log grows by p from one syndrome to the
+   * next. Zero codewords are skipped.
+   *
+   * @return false if all syndromes are zero, i.e. there are no errors
+   */
+  private boolean computeSyndromes(int[] received, int[] syndromes) {
+    int[] expTable = field.getExpTable();
+    int[] logTable = field.getLogTable();
+    int order = field.getSize() - 1;
+    int generatorBase = field.getGeneratorBase();
+    for (int j = 0; j < received.length; j++) {
+      int coefficient = received[j];
+      if (coefficient == 0) {
+        continue;
+      }
+      int power = (received.length - 1 - j) % order;
+      int log = (logTable[coefficient] + generatorBase * power) % order;
+      for (int i = 0; i < syndromes.length; i++) {
+        syndromes[i] ^= expTable[log];
+        log += power;
+        if (log >= order) {
+          log -= order;
+        }
+      }
+    }
+    for (int syndrome : syndromes) {
+      if (syndrome != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the shortest linear feedback shift register generating the syndromes, whose connection
+   * polynomial is the error locator sigma, with sigma(0) = 1.
+   *
+   * @param sigma receives the coefficients of the error locator, lowest degree first
+   * @return number of errors, which is the degree of the error locator, or 0 if there are more
+   *  errors than can be corrected unambiguously
+   */
+  private int runBerlekampMassey(int[] syndromes, int[] sigma) {
+    int twoS = syndromes.length;
+    int[] previous = new int[twoS + 1];
+    int[] temp = new int[twoS + 1];
+    sigma[0] = 1;
+    previous[0] = 1;
+    int length = 0;
+    int shift = 1;
+    int previousDiscrepancy = 1;
+    for (int n = 0; n < twoS; n++) {
+      int discrepancy = syndromes[n];
+      for (int i = 1; i <= length; i++) {
+        discrepancy ^= field.multiply(sigma[i], syndromes[n - i]);
+      }
+      if (discrepancy == 0) {
+        shift++;
+        continue;
+      }
+      int scale = field.multiply(discrepancy, field.inverse(previousDiscrepancy));
+      if (2 * length <= n) {
+        System.arraycopy(sigma, 0, temp, 0, twoS + 1);
+        addScaledShifted(sigma, previous, scale, shift);
+        int[] swap = previous;
+        previous = temp;
+        temp = swap;
+        length = n + 1 - length;
+        previousDiscrepancy = discrepancy;
+        shift = 1;
+      } else {
+        addScaledShifted(sigma, previous, scale, shift);
+        shift++;
+      }
+    }
+    if (2 * length > twoS || sigma[length] == 0) {
+      return 0;
+    }
+    return length;
+  }
+
+  /**
+   * Adds scale * x^shift * b to a, in place.
+   */
+  private void addScaledShifted(int[] a, int[] b, int scale, int shift) {
+    for (int i = shift; i < a.length; i++) {
+      int coefficient = b[i - shift];
+      if (coefficient != 0) {
+        a[i] ^= field.multiply(coefficient, scale);
+      }
+    }
+  }
+
+  /**
+   * @return the error evaluator omega = sigma * S mod x^twoS, lowest degree first
+   */
+  private int[] computeErrorEvaluator(int[] syndromes, int[] sigma, int numErrors) {
+    int twoS = syndromes.length;
+    int[] omega = new int[twoS];
+    for (int k = 0; k < twoS; k++) {
+      int coefficient = 0;
+      for (int i = 0; i <= numErrors && i <= k; i++) {
+        coefficient ^= field.multiply(sigma[i], syndromes[k - i]);
+      }
+      omega[k] = coefficient;
+    }
+    return omega;
+  }
+
+  /**
+   * Evaluates a polynomial, lowest degree first, at the element with the given log.
+   */
+  private int evaluateAt(int[] coefficients, int degree, int logPoint) {
+    int[] expTable = field.getExpTable();
+    int[] logTable = field.getLogTable();
+    int result = 0;
+    for (int i = degree; i >= 0; i--) {
+      result = result == 0 ? coefficients[i] : expTable[logTable[result] + logPoint] ^ coefficients[i];
+    }
+    return result;
+  }
+
+  /**
+   * @return the error locations, or null if the error locator does not have as many roots
+   *  corresponding to positions within the received codewords as its degree
+   */
+  private int[] findErrorLocations(int[] errorLocator, int numErrors, int length) {
+    // This is a direct application of Chien's search, restricted to the roots which correspond
+    // to positions within the received codewords: the inverse of a^k for position length - 1 - k
+    int order = field.getSize() - 1;
+    int candidates = Math.min(length, order);
+    int[] result = new int[numErrors];
+    int e = 0;
+    for (int k = 0; k < candidates && e < numErrors; k++) {
+      if (evaluateAt(errorLocator, numErrors, (order - k) % order) == 0) {
+        result[e] = field.exp(k);
+        e++;
+      }
+    }
+    return e == numErrors ? result : null;
+  }
+
+  private int[] findErrorMagnitudes(int[] errorEvaluator, int[] errorLocations) {
+    // This is directly applying Forney's Formula
+    int s = errorLocations.length;
+    int[] result = new int[s];
+    for (int i = 0; i < s; i++) {
+      int xiInverse = field.inverse(errorLocations[i]);
+      int denominator = 1;
+      for (int j = 0; j < s; j++) {
+        if (i != j) {
+          //denominator = field.multiply(denominator,
+          //    GenericGF.addOrSubtract(1, field.multiply(errorLocations[j], xiInverse)));
+          // Above should work but fails on some Apple and Linux JDKs due to a Hotspot bug.
+          // Below is a funny-looking workaround from Steven Parkes
+          int term = field.multiply(errorLocations[j], xiInverse);
+          int termPlus1 = (term & 0x1) == 0 ? term | 1 : term & ~1;
+          denominator = field.multiply(denominator, termPlus1);
+        }
+      }
+      result[i] = field.multiply(evaluateAt(errorEvaluator, errorEvaluator.length - 1, field.log(xiInverse)),
+          field.inverse(denominator));
+      if (field.getGeneratorBase() != 0) {
+        result[i] = field.multiply(result[i], xiInverse);
+      }
+    }
+    return result;
+  }
+
+
   private GenericGFPoly[] runEuclideanAlgorithm(GenericGFPoly a, GenericGFPoly b, int R)
       throws ReedSolomonException {
     // Assume a's degree is >= b's
@@ -161,30 +351,12 @@ public final class ReedSolomonDecoder {
   }
 
   private int[] findErrorMagnitudes(GenericGFPoly errorEvaluator, int[] errorLocations) {
-    // This is directly applying Forney's Formula
-    int s = errorLocations.length;
-    int[] result = new int[s];
-    for (int i = 0; i < s; i++) {
-      int xiInverse = field.inverse(errorLocations[i]);
-      int denominator = 1;
-      for (int j = 0; j < s; j++) {
-        if (i != j) {
-          //denominator = field.multiply(denominator,
-          //    GenericGF.addOrSubtract(1, field.multiply(errorLocations[j], xiInverse)));
-          // Above should work but fails on some Apple and Linux JDKs due to a Hotspot bug.
-          // Below is a funny-looking workaround from Steven Parkes
-          int term = field.multiply(errorLocations[j], xiInverse);
-          int termPlus1 = (term & 0x1) == 0 ? term | 1 : term & ~1;
-          denominator = field.multiply(denominator, termPlus1);
-        }
-      }
-      result[i] = field.multiply(errorEvaluator.evaluateAt(xiInverse),
-          field.inverse(denominator));
-      if (field.getGeneratorBase() != 0) {
-        result[i] = field.multiply(result[i], xiInverse);
-      }
+    int degree = errorEvaluator.getDegree();
+    int[] coefficients = new int[degree + 1];
+    for (int i = 0; i <= degree; i++) {
+      coefficients[i] = errorEvaluator.getCoefficient(i);
     }
-    return result;
+    return findErrorMagnitudes(coefficients, errorLocations);
   }
 
 }
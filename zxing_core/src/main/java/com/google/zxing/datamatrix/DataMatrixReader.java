@@ -20,6 +20,7 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -64,13 +65,17 @@ public final class DataMatrixReader implements Reader {
       throws NotFoundException, ChecksumException, FormatException {
     DecoderResult decoderResult;
     ResultPoint[] points;
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
+    BitMatrix matrix = image.getBlackMatrix();
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
     if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-      BitMatrix bits = extractPureBits(image.getBlackMatrix());
-      decoderResult = decoder.decode(bits);
+      BitMatrix bits = extractPureBits(matrix);
+      decoderResult = decoder.decode(bits, hints);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect();
-      decoderResult = decoder.decode(detectorResult.getBits());
+      DetectorResult detectorResult = new Detector(matrix).detect();
+      decoderResult = decoder.decode(detectorResult.getBits(), hints);
       points = detectorResult.getPoints();
     }
     Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
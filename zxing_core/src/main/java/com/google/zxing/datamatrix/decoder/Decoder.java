@@ -17,6 +17,8 @@
 package com.google.zxing.datamatrix.decoder;
 
 import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
@@ -24,6 +26,8 @@ import com.google.zxing.common.reedsolomon.GenericGF;
 import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.common.reedsolomon.ReedSolomonException;
 
+import java.util.Map;
+
 /**
  * <p>The main class which implements Data Matrix Code decoding -- as opposed to locating and extracting
  * the Data Matrix Code from an image.</p>
@@ -61,6 +65,21 @@ public final class Decoder {
    * @throws ChecksumException if error correction fails
    */
   public DecoderResult decode(BitMatrix bits) throws FormatException, ChecksumException {
+    return decode(bits, null);
+  }
+
+  /**
+   * <p>Decodes a Data Matrix Code represented as a {@link BitMatrix}. A 1 or "true" is taken
+   * to mean a black module.</p>
+   *
+   * @param bits booleans representing white/black Data Matrix Code modules
+   * @param hints decoding hints that should be used to influence decoding
+   * @return text and bytes encoded within the Data Matrix Code
+   * @throws FormatException if the Data Matrix Code cannot be decoded
+   * @throws ChecksumException if error correction fails
+   */
+  public DecoderResult decode(BitMatrix bits, Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException {
 
     // Construct a parser and read version, error-correction level
     BitMatrixParser parser = new BitMatrixParser(bits);
@@ -78,6 +97,8 @@ public final class Decoder {
     }
     byte[] resultBytes = new byte[totalBytes];
 
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.ERROR_CORRECTION);
     int dataBlocksCount = dataBlocks.length;
     // Error-correct and copy data blocks together into a stream of bytes
     for (int j = 0; j < dataBlocksCount; j++) {
@@ -92,6 +113,7 @@ public final class Decoder {
     }
 
     // Decode the contents of that stream of bytes
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.PARSING);
     return DecodedBitStreamParser.decode(resultBytes);
   }
 
@@ -20,6 +20,7 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -61,7 +62,11 @@ public final class MaxiCodeReader implements Reader {
       throws NotFoundException, ChecksumException, FormatException {
     // Note that MaxiCode reader effectively always assumes PURE_BARCODE mode
     // and can't detect it in an image
-    BitMatrix bits = extractPureBits(image.getBlackMatrix());
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
+    BitMatrix matrix = image.getBlackMatrix();
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
+    BitMatrix bits = extractPureBits(matrix);
     DecoderResult decoderResult = decoder.decode(bits, hints);
     Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), NO_POINTS, BarcodeFormat.MAXICODE);
 
@@ -18,6 +18,7 @@ package com.google.zxing.maxicode.decoder;
 
 import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
@@ -54,6 +55,8 @@ public final class Decoder {
     BitMatrixParser parser = new BitMatrixParser(bits);
     byte[] codewords = parser.readCodewords();
 
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.ERROR_CORRECTION);
     correctErrors(codewords, 0, 10, 10, ALL);
     int mode = codewords[0] & 0x0F;
     byte[] datawords;
@@ -77,6 +80,7 @@ public final class Decoder {
     System.arraycopy(codewords, 0, datawords, 0, 10);
     System.arraycopy(codewords, 20, datawords, 10, datawords.length - 10);
 
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.PARSING);
     return DecodedBitStreamParser.decode(datawords, mode);
   }
 
@@ -17,6 +17,7 @@
 package com.google.zxing.multi;
 
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -33,6 +34,8 @@ import java.util.Map;
  * After one barcode is found, the areas left, above, right and below the barcode's
  * {@link ResultPoint}s are scanned, recursively.</p>
  *
+ * <p>The regions are cut from the 1 bit data of the whole image, so that it is binarized once.</p>
+ *
  * <p>A caller may want to also employ {@link ByQuadrantReader} when attempting to find multiple
  * 2D barcodes, like QR Codes, in an image, where the presence of multiple barcodes might prevent
  * detecting any one of them.</p>
@@ -66,6 +69,8 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     List<Result> results = new ArrayList<>();
     doDecodeMultiple(image, hints, results, 0, 0, 0);
     if (results.isEmpty()) {
+      // Report running out of time rather than a plain miss
+      DecodeDeadline.check(DecodeDeadline.fromHints(hints));
       throw NotFoundException.getNotFoundInstance();
     }
     return results.toArray(EMPTY_RESULT_ARRAY);
@@ -81,6 +86,11 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
       return;
     }
 
+    // Once the deadline expires, the barcodes found so far are returned
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    if (deadline != null && deadline.isExpired()) {
+      return;
+    }
     Result result;
     try {
       result = delegate.decode(image, hints);
@@ -129,35 +139,35 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
 
     // Decode left of barcode
     if (minX > MIN_DIMENSION_TO_RECUR) {
-      doDecodeMultiple(image.crop(0, 0, (int) minX, height),
+      doDecodeMultiple(image.cropBinarized(0, 0, (int) minX, height),
                        hints, results,
                        xOffset, yOffset,
                        currentDepth + 1);
     }
     // Decode above barcode
     if (minY > MIN_DIMENSION_TO_RECUR) {
-      doDecodeMultiple(image.crop(0, 0, width, (int) minY),
+      doDecodeMultiple(image.cropBinarized(0, 0, width, (int) minY),
                        hints, results,
                        xOffset, yOffset,
                        currentDepth + 1);
     }
     // Decode right of barcode
     if (maxX < width - MIN_DIMENSION_TO_RECUR) {
-      doDecodeMultiple(image.crop((int) maxX, 0, width - (int) maxX, height),
+      doDecodeMultiple(image.cropBinarized((int) maxX, 0, width - (int) maxX, height),
                        hints, results,
                        xOffset + (int) maxX, yOffset,
                        currentDepth + 1);
     }
     // Decode below barcode
     if (maxY < height - MIN_DIMENSION_TO_RECUR) {
-      doDecodeMultiple(image.crop(0, (int) maxY, width, height - (int) maxY),
+      doDecodeMultiple(image.cropBinarized(0, (int) maxY, width, height - (int) maxY),
                        hints, results,
                        xOffset, yOffset + (int) maxY,
                        currentDepth + 1);
     }
   }
 
-  private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
+  static Result translateResultPoints(Result result, int xOffset, int yOffset) {
     ResultPoint[] oldResultPoints = result.getResultPoints();
     if (oldResultPoints == null) {
       return result;
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+/**
+ * <p>A rectangle of an image which likely contains a barcode, as proposed by
+ * {@link RegionProposer}.</p>
+ */
+public final class RegionProposal {
+
+  private final int left;
+  private final int top;
+  private final int width;
+  private final int height;
+  private final boolean linear;
+  private final float angle;
+  private final float score;
+
+  RegionProposal(int left, int top, int width, int height, boolean linear, float angle, float score) {
+    this.left = left;
+    this.top = top;
+    this.width = width;
+    this.height = height;
+    this.linear = linear;
+    this.angle = angle;
+    this.score = score;
+  }
+
+  public int getLeft() {
+    return left;
+  }
+
+  public int getTop() {
+    return top;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return true if the edges in the region run mostly in one direction, as the bars of a 1D or
+   *  stacked barcode do, false if they run in all directions, as in a 2D matrix barcode
+   */
+  public boolean isLinear() {
+    return linear;
+  }
+
+  /**
+   * @return direction across the edges, in degrees from the x axis towards the y axis, in
+   *  [0, 180). 0 means vertical bars, read along rows. Only meaningful for linear regions.
+   */
+  public float getAngle() {
+    return angle;
+  }
+
+  /**
+   * @return total gradient energy of the region, lowered for elongated matrix regions, which are
+   *  more likely lines of text; proposals are sorted by decreasing score
+   */
+  public float getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return (linear ? "linear " : "matrix ") + width + 'x' + height + '+' + left + '+' + top +
+        (linear ? " at " + Math.round(angle) : "");
+  }
+
+}
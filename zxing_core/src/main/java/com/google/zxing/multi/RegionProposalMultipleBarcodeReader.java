@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Attempts to locate multiple barcodes in an image by only decoding the regions proposed by
+ * {@link RegionProposer}, best first. Each region is searched like
+ * {@link GenericMultipleBarcodeReader} searches a whole image, first for the kind of barcode the
+ * region looks like (1D and stacked, or 2D matrix), then for the others. Linear regions whose
+ * bars are not roughly vertical are also searched with {@link DecodeHintType#OMNIDIRECTIONAL}
+ * scanlines.</p>
+ *
+ * <p>If no region holds a barcode, or the image cannot be cropped, the whole image is searched
+ * with {@link GenericMultipleBarcodeReader}.</p>
+ */
+public final class RegionProposalMultipleBarcodeReader implements MultipleBarcodeReader {
+
+  private static final int DEFAULT_MAX_REGIONS = 16;
+  // Bars within this many degrees of vertical are found by scanning rows
+  private static final float MAX_ROW_SCAN_ANGLE = 20.0f;
+
+  private static final Set<BarcodeFormat> MATRIX_FORMATS = EnumSet.of(
+      BarcodeFormat.AZTEC, BarcodeFormat.DATA_MATRIX, BarcodeFormat.MAXICODE, BarcodeFormat.QR_CODE);
+
+  private final Reader delegate;
+  private final int maxRegions;
+
+  public RegionProposalMultipleBarcodeReader(Reader delegate) {
+    this(delegate, DEFAULT_MAX_REGIONS);
+  }
+
+  /**
+   * @param delegate the reader to decode regions with, e.g. a {@link com.google.zxing.MultiFormatReader}
+   * @param maxRegions the largest number of regions to search
+   */
+  public RegionProposalMultipleBarcodeReader(Reader delegate, int maxRegions) {
+    this.delegate = delegate;
+    this.maxRegions = maxRegions;
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints)
+      throws NotFoundException {
+    GenericMultipleBarcodeReader wholeImageReader = new GenericMultipleBarcodeReader(delegate);
+    if (!image.isCropSupported()) {
+      return wholeImageReader.decodeMultiple(image, hints);
+    }
+
+    Set<BarcodeFormat> formats = EnumSet.allOf(BarcodeFormat.class);
+    Object possibleFormats = hints == null ? null : hints.get(DecodeHintType.POSSIBLE_FORMATS);
+    if (possibleFormats instanceof Collection && !((Collection<?>) possibleFormats).isEmpty()) {
+      formats.clear();
+      for (Object format : (Collection<?>) possibleFormats) {
+        formats.add((BarcodeFormat) format);
+      }
+    }
+    Set<BarcodeFormat> matrixFormats = EnumSet.noneOf(BarcodeFormat.class);
+    Set<BarcodeFormat> linearFormats = EnumSet.noneOf(BarcodeFormat.class);
+    for (BarcodeFormat format : formats) {
+      (MATRIX_FORMATS.contains(format) ? matrixFormats : linearFormats).add(format);
+    }
+
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    List<Result> results = new ArrayList<>();
+    List<RegionProposal> proposals = RegionProposer.propose(image.getLuminanceSource());
+    for (int i = 0; i < proposals.size() && i < maxRegions; i++) {
+      if (deadline != null && deadline.isExpired()) {
+        // Return the barcodes found so far
+        break;
+      }
+      RegionProposal region = proposals.get(i);
+      BinaryBitmap crop = image.crop(region.getLeft(), region.getTop(), region.getWidth(), region.getHeight());
+      Set<BarcodeFormat> likely = region.isLinear() ? linearFormats : matrixFormats;
+      Set<BarcodeFormat> others = region.isLinear() ? matrixFormats : linearFormats;
+      Result[] found = decodeRegion(crop, region, hints, likely);
+      if (found == null) {
+        found = decodeRegion(crop, region, hints, others);
+      }
+      if (found != null) {
+        for (Result result : found) {
+          addIfNew(results, GenericMultipleBarcodeReader.translateResultPoints(result, region.getLeft(), region.getTop()));
+        }
+      }
+    }
+    if (results.isEmpty()) {
+      DecodeDeadline.check(deadline);
+      // Nothing where barcodes were expected; search everywhere
+      return wholeImageReader.decodeMultiple(image, hints);
+    }
+    return results.toArray(GenericMultipleBarcodeReader.EMPTY_RESULT_ARRAY);
+  }
+
+  /**
+   * @return the barcodes in the region, or null if none was found
+   */
+  private Result[] decodeRegion(BinaryBitmap crop,
+                                RegionProposal region,
+                                Map<DecodeHintType,?> hints,
+                                Set<BarcodeFormat> formats) {
+    if (formats.isEmpty()) {
+      return null;
+    }
+    Map<DecodeHintType,Object> regionHints = new EnumMap<>(DecodeHintType.class);
+    if (hints != null) {
+      regionHints.putAll(hints);
+    }
+    regionHints.put(DecodeHintType.POSSIBLE_FORMATS, new ArrayList<>(formats));
+    float angle = region.getAngle();
+    if (region.isLinear() && Math.min(angle, 180.0f - angle) > MAX_ROW_SCAN_ANGLE) {
+      regionHints.put(DecodeHintType.OMNIDIRECTIONAL, Boolean.TRUE);
+    }
+    try {
+      return new GenericMultipleBarcodeReader(delegate).decodeMultiple(crop, regionHints);
+    } catch (NotFoundException nfe) {
+      // Nothing found, or nothing before the deadline
+      return null;
+    }
+  }
+
+  private static void addIfNew(List<Result> results, Result result) {
+    for (Result existingResult : results) {
+      if (existingResult.getText().equals(result.getText())) {
+        return;
+      }
+    }
+    results.add(result);
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ScaledLuminanceSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>Proposes the regions of an image which likely contain barcodes, so that readers can search
+ * a few small crops instead of the whole image.</p>
+ *
+ * <p>The image is scaled down to about 1000 pixels on its short side, and cut into blocks. For
+ * each block, the structure tensor of the luminance gradient gives the gradient energy, i.e. how
+ * much edge there is, and its coherence, i.e. how much the edges share one direction. Barcodes
+ * have a lot of edges: along one direction for the bars of 1D and stacked barcodes, in all
+ * directions for 2D matrix barcodes. Neighbouring blocks with enough energy are grouped into
+ * regions, linear blocks only with linear blocks of about the same direction.</p>
+ *
+ * <p>Text and other fine texture also have a lot of edges, so proposals are only candidates.</p>
+ */
+public final class RegionProposer {
+
+  // Short side of the scaled down image, roughly
+  private static final int TARGET_SIZE = 1000;
+  private static final int BLOCK_SIZE = 16;
+  // Average squared central difference per pixel, over x and y, for a block to count
+  private static final int MIN_ENERGY = 600;
+  // Blocks at least this coherent have edges mostly along one direction
+  private static final float LINEAR_COHERENCE = 0.7f;
+  // Largest difference of direction between neighbouring blocks of one linear region, in degrees
+  private static final float MAX_ANGLE_DIFFERENCE = 20.0f;
+  // Smaller groups are noise, or barcodes too small to read
+  private static final int MIN_BLOCKS = 2;
+  // Matrix regions more elongated than this are more likely lines of text, and score lower
+  private static final float MAX_MATRIX_ASPECT = 2.0f;
+
+  private static final Comparator<RegionProposal> BY_DECREASING_SCORE = new Comparator<RegionProposal>() {
+    @Override
+    public int compare(RegionProposal a, RegionProposal b) {
+      return Float.compare(b.getScore(), a.getScore());
+    }
+  };
+
+  private RegionProposer() {
+  }
+
+  /**
+   * @param source the image
+   * @return the proposed regions, in coordinates of the image, by decreasing score
+   */
+  public static List<RegionProposal> propose(LuminanceSource source) {
+    int scale = Math.max(1, Math.min(source.getWidth(), source.getHeight()) / TARGET_SIZE);
+    LuminanceSource scaled = scale > 1 ? new ScaledLuminanceSource(source, scale) : source;
+    int width = scaled.getWidth();
+    int height = scaled.getHeight();
+    int blocksX = width / BLOCK_SIZE;
+    int blocksY = height / BLOCK_SIZE;
+    if (blocksX == 0 || blocksY == 0) {
+      return Collections.emptyList();
+    }
+
+    // Structure tensor of each block: sums of gx * gx, gy * gy and gx * gy
+    int[] xx = new int[blocksX * blocksY];
+    int[] yy = new int[xx.length];
+    int[] xy = new int[xx.length];
+    byte[] luminances = scaled.getMatrix();
+    for (int y = 1; y < blocksY * BLOCK_SIZE && y < height - 1; y++) {
+      int blockRow = (y / BLOCK_SIZE) * blocksX;
+      int offset = y * width;
+      for (int blockX = 0; blockX < blocksX; blockX++) {
+        int sumXX = 0;
+        int sumYY = 0;
+        int sumXY = 0;
+        int x = Math.max(1, blockX * BLOCK_SIZE);
+        int end = Math.min(width - 1, (blockX + 1) * BLOCK_SIZE);
+        for (; x < end; x++) {
+          int gx = (luminances[offset + x + 1] & 0xFF) - (luminances[offset + x - 1] & 0xFF);
+          int gy = (luminances[offset + x + width] & 0xFF) - (luminances[offset + x - width] & 0xFF);
+          sumXX += gx * gx;
+          sumYY += gy * gy;
+          sumXY += gx * gy;
+        }
+        xx[blockRow + blockX] += sumXX;
+        yy[blockRow + blockX] += sumYY;
+        xy[blockRow + blockX] += sumXY;
+      }
+    }
+
+    boolean[] candidate = new boolean[xx.length];
+    boolean[] linear = new boolean[xx.length];
+    float[] angle = new float[xx.length];
+    int minSum = MIN_ENERGY * BLOCK_SIZE * BLOCK_SIZE;
+    for (int i = 0; i < xx.length; i++) {
+      int energy = xx[i] + yy[i];
+      if (energy >= minSum) {
+        candidate[i] = true;
+        float difference = xx[i] - yy[i];
+        float coherence = (float) Math.sqrt(difference * difference + 4.0f * xy[i] * (float) xy[i]) / energy;
+        linear[i] = coherence >= LINEAR_COHERENCE;
+        angle[i] = angleOf(xx[i], yy[i], xy[i]);
+      }
+    }
+
+    // Group blocks into regions, breadth first
+    List<RegionProposal> proposals = new ArrayList<>();
+    boolean[] visited = new boolean[xx.length];
+    int[] queue = new int[xx.length];
+    for (int start = 0; start < xx.length; start++) {
+      if (!candidate[start] || visited[start]) {
+        continue;
+      }
+      visited[start] = true;
+      queue[0] = start;
+      int head = 0;
+      int tail = 1;
+      int minX = blocksX;
+      int minY = blocksY;
+      int maxX = 0;
+      int maxY = 0;
+      long sumXX = 0;
+      long sumYY = 0;
+      long sumXY = 0;
+      long linearEnergy = 0;
+      while (head < tail) {
+        int block = queue[head++];
+        int blockX = block % blocksX;
+        int blockY = block / blocksX;
+        minX = Math.min(minX, blockX);
+        minY = Math.min(minY, blockY);
+        maxX = Math.max(maxX, blockX);
+        maxY = Math.max(maxY, blockY);
+        sumXX += xx[block];
+        sumYY += yy[block];
+        sumXY += xy[block];
+        if (linear[block]) {
+          linearEnergy += xx[block] + yy[block];
+        }
+        for (int ny = Math.max(0, blockY - 1); ny <= Math.min(blocksY - 1, blockY + 1); ny++) {
+          for (int nx = Math.max(0, blockX - 1); nx <= Math.min(blocksX - 1, blockX + 1); nx++) {
+            int neighbor = ny * blocksX + nx;
+            if (candidate[neighbor] && !visited[neighbor] &&
+                (!linear[block] || !linear[neighbor] || isSameDirection(angle[block], angle[neighbor]))) {
+              visited[neighbor] = true;
+              queue[tail++] = neighbor;
+            }
+          }
+        }
+      }
+      if (tail < MIN_BLOCKS) {
+        continue;
+      }
+      // One block of margin around, for the quiet zone and the edges of the barcode
+      int blockSize = BLOCK_SIZE * scale;
+      int left = Math.max(0, (minX - 1) * blockSize);
+      int top = Math.max(0, (minY - 1) * blockSize);
+      int right = Math.min(source.getWidth(), (maxX + 2) * blockSize);
+      int bottom = Math.min(source.getHeight(), (maxY + 2) * blockSize);
+      long energy = sumXX + sumYY;
+      boolean isLinear = 2 * linearEnergy >= energy;
+      float score = energy;
+      if (!isLinear) {
+        float aspect = (float) (Math.max(maxX - minX, maxY - minY) + 1) / (Math.min(maxX - minX, maxY - minY) + 1);
+        if (aspect > MAX_MATRIX_ASPECT) {
+          score /= (aspect / MAX_MATRIX_ASPECT) * (aspect / MAX_MATRIX_ASPECT);
+        }
+      }
+      proposals.add(new RegionProposal(left, top, right - left, bottom - top,
+                                       isLinear, angleOf(sumXX, sumYY, sumXY), score));
+    }
+    Collections.sort(proposals, BY_DECREASING_SCORE);
+    return proposals;
+  }
+
+  /**
+   * @return the dominant direction of the gradient, in degrees in [0, 180)
+   */
+  private static float angleOf(float xx, float yy, float xy) {
+    float degrees = (float) Math.toDegrees(0.5 * Math.atan2(2.0 * xy, xx - yy));
+    return degrees < 0.0f ? degrees + 180.0f : degrees;
+  }
+
+  private static boolean isSameDirection(float a, float b) {
+    float difference = Math.abs(a - b);
+    return Math.min(difference, 180.0f - difference) <= MAX_ANGLE_DIFFERENCE;
+  }
+
+}
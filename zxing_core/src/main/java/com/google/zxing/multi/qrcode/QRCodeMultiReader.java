@@ -18,6 +18,7 @@ package com.google.zxing.multi.qrcode;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ReaderException;
@@ -59,7 +60,12 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
   public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
     List<Result> results = new ArrayList<>();
     DetectorResult[] detectorResults = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
     for (DetectorResult detectorResult : detectorResults) {
+      if (deadline != null && deadline.isExpired()) {
+        // Return the codes decoded so far
+        break;
+      }
       try {
         DecoderResult decoderResult = getDecoder().decode(detectorResult.getBits(), hints);
         ResultPoint[] points = detectorResult.getPoints();
@@ -89,6 +95,7 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
       }
     }
     if (results.isEmpty()) {
+      DecodeDeadline.check(deadline);
       return EMPTY_RESULT_ARRAY;
     } else {
       results = processStructuredAppend(results);
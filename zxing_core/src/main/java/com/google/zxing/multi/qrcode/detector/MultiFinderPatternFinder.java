@@ -16,6 +16,7 @@
 
 package com.google.zxing.multi.qrcode.detector;
 
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -232,8 +233,10 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
       iSkip = MIN_SKIP;
     }
 
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
     int[] stateCount = new int[5];
     for (int i = iSkip - 1; i < maxI; i += iSkip) {
+      DecodeDeadline.check(deadline);
       // Get a row of black/white values
       clearCounts(stateCount);
       int currentState = 0;
@@ -22,6 +22,7 @@ import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -235,19 +236,11 @@ public final class CodaBarReader extends OneDReader {
     if (i >= end) {
       throw NotFoundException.getNotFoundInstance();
     }
-    boolean isWhite = true;
-    int count = 0;
-    while (i < end) {
-      if (row.get(i) != isWhite) {
-        count++;
-      } else {
-        counterAppend(count);
-        count = 1;
-        isWhite = !isWhite;
-      }
-      i++;
+    RowRuns runs = row.getRuns();
+    int runCount = runs.getRunCount();
+    for (int run = runs.getRunAt(i); run < runCount; run++) {
+      counterAppend(runs.getRunLength(run));
     }
-    counterAppend(count);
   }
 
   private void counterAppend(int e) {
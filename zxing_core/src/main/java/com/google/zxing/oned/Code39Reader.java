@@ -24,6 +24,7 @@ import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -181,30 +182,34 @@ public final class Code39Reader extends OneDReader {
 
     int counterPosition = 0;
     int patternStart = rowOffset;
-    boolean isWhite = false;
     int patternLength = counters.length;
 
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          // Look for whitespace before start pattern, >= 50% of width of start pattern
-          if (toNarrowWidePattern(counters) == ASTERISK_ENCODING &&
-              row.isRange(Math.max(0, patternStart - ((i - patternStart) / 2)), patternStart, false)) {
-            return new int[]{patternStart, i};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+    RowRuns runs = row.getRuns();
+    int run = rowOffset < width ? runs.getRunAt(rowOffset) : 0;
+    int i = rowOffset;
+    while (i < width) {
+      // Count the rest of the current run at once
+      int runEnd = runs.getRunEnd(run++);
+      counters[counterPosition] += runEnd - i;
+      i = runEnd;
+      if (i == width) {
+        break;
+      }
+      if (counterPosition == patternLength - 1) {
+        // Look for whitespace before start pattern, >= 50% of width of start pattern
+        if (toNarrowWidePattern(counters) == ASTERISK_ENCODING &&
+            row.isRange(Math.max(0, patternStart - ((i - patternStart) / 2)), patternStart, false)) {
+          return new int[]{patternStart, i};
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+        patternStart += counters[0] + counters[1];
+        System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
+        counters[counterPosition - 1] = 0;
+        counters[counterPosition] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      counters[counterPosition] = 0;
     }
     throw NotFoundException.getNotFoundInstance();
   }
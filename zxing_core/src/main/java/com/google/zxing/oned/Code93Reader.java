@@ -24,6 +24,7 @@ import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -135,29 +136,33 @@ public final class Code93Reader extends OneDReader {
     Arrays.fill(counters, 0);
     int[] theCounters = counters;
     int patternStart = rowOffset;
-    boolean isWhite = false;
     int patternLength = theCounters.length;
 
     int counterPosition = 0;
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        theCounters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (toPattern(theCounters) == ASTERISK_ENCODING) {
-            return new int[]{patternStart, i};
-          }
-          patternStart += theCounters[0] + theCounters[1];
-          System.arraycopy(theCounters, 2, theCounters, 0, counterPosition - 1);
-          theCounters[counterPosition - 1] = 0;
-          theCounters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+    RowRuns runs = row.getRuns();
+    int run = rowOffset < width ? runs.getRunAt(rowOffset) : 0;
+    int i = rowOffset;
+    while (i < width) {
+      // Count the rest of the current run at once
+      int runEnd = runs.getRunEnd(run++);
+      theCounters[counterPosition] += runEnd - i;
+      i = runEnd;
+      if (i == width) {
+        break;
+      }
+      if (counterPosition == patternLength - 1) {
+        if (toPattern(theCounters) == ASTERISK_ENCODING) {
+          return new int[]{patternStart, i};
         }
-        theCounters[counterPosition] = 1;
-        isWhite = !isWhite;
+        patternStart += theCounters[0] + theCounters[1];
+        System.arraycopy(theCounters, 2, theCounters, 0, counterPosition - 1);
+        theCounters[counterPosition - 1] = 0;
+        theCounters[counterPosition] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      theCounters[counterPosition] = 0;
     }
     throw NotFoundException.getNotFoundInstance();
   }
@@ -23,6 +23,7 @@ import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 
 import java.util.Map;
 
@@ -316,29 +317,33 @@ public final class ITFReader extends OneDReader {
     int patternLength = pattern.length;
     int[] counters = new int[patternLength];
     int width = row.getSize();
-    boolean isWhite = false;
 
     int counterPosition = 0;
     int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
-            return new int[]{patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+    RowRuns runs = row.getRuns();
+    int run = rowOffset < width ? runs.getRunAt(rowOffset) : 0;
+    int x = rowOffset;
+    while (x < width) {
+      // Count the rest of the current run at once
+      int runEnd = runs.getRunEnd(run++);
+      counters[counterPosition] += runEnd - x;
+      x = runEnd;
+      if (x == width) {
+        break;
+      }
+      if (counterPosition == patternLength - 1) {
+        if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
+          return new int[]{patternStart, x};
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+        patternStart += counters[0] + counters[1];
+        System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
+        counters[counterPosition - 1] = 0;
+        counters[counterPosition] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      counters[counterPosition] = 0;
     }
     throw NotFoundException.getNotFoundInstance();
   }
@@ -18,6 +18,7 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
@@ -93,11 +94,21 @@ public final class MultiFormatOneDReader extends OneDReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
     for (OneDReader reader : readers) {
+      long start = tracer == null ? 0L : System.nanoTime();
+      boolean found = false;
       try {
-        return reader.decodeRow(rowNumber, row, hints);
+        Result result = reader.decodeRow(rowNumber, row, hints);
+        found = true;
+        return result;
       } catch (ReaderException re) {
         // continue
+      } finally {
+        if (tracer != null) {
+          // Summed over the rows, and recorded as one sample per 1D format when the attempt ends
+          tracer.addReaderTime(reader.getClass().getSimpleName(), System.nanoTime() - start, found);
+        }
       }
     }
 
@@ -18,8 +18,11 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
@@ -27,8 +30,9 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.RowRuns;
 
-import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -41,6 +45,13 @@ import java.util.Map;
  */
 public abstract class OneDReader implements Reader {
 
+  // Directions of the scanlines tried in omnidirectional mode, in degrees clockwise from rows.
+  // Decoding tolerates roughly 10 degrees of tilt, so 22.5 degree steps leave no gaps.
+  private static final float[] SCANLINE_ANGLES = {90.0f, 45.0f, 135.0f, 22.5f, 157.5f, 67.5f, 112.5f};
+  // A scanline result must be read again by parallel lines on both sides, at most this many pixels
+  // away so that they still cross a low barcode
+  private static final int MAX_CONFIRM_DISTANCE = 8;
+
   @Override
   public Result decode(BinaryBitmap image) throws NotFoundException, FormatException {
     return decode(image, null);
@@ -53,34 +64,70 @@ public abstract class OneDReader implements Reader {
     try {
       return doDecode(image, hints);
     } catch (NotFoundException nfe) {
+      if (nfe.isCancelled()) {
+        throw nfe;
+      }
+      if (hints != null && hints.containsKey(DecodeHintType.OMNIDIRECTIONAL)) {
+        return doDecodeOmnidirectional(image, hints);
+      }
       boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
       if (tryHarder && image.isRotateSupported()) {
-        BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
-        // Record that we found it rotated 90 degrees CCW / 270 degrees CW
-        Map<ResultMetadataType,?> metadata = result.getResultMetadata();
-        int orientation = 270;
-        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
-          // But if we found it reversed in doDecode(), add in that result here:
-          orientation = (orientation +
-              (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
-        }
-        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
-        // Update result points
-        ResultPoint[] points = result.getResultPoints();
-        if (points != null) {
-          int height = rotatedImage.getHeight();
-          for (int i = 0; i < points.length; i++) {
-            points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
-          }
-        }
-        return result;
+        return decodeRotated(image, hints);
       } else {
         throw nfe;
       }
     }
   }
 
+  /**
+   * Searches the rows of the image as it is, the first pass of {@link #decode(BinaryBitmap, Map)},
+   * without falling back to a rotated or omnidirectional pass.
+   *
+   * @param image image to decode
+   * @param hints decode hints, or null
+   * @return the first barcode found
+   * @throws NotFoundException if no barcode was found
+   */
+  public final Result decodeUnrotated(BinaryBitmap image,
+                                      Map<DecodeHintType,?> hints) throws NotFoundException {
+    return doDecode(image, hints);
+  }
+
+  /**
+   * Searches the rows of the image rotated by 90 degrees, the second pass of
+   * {@link #decode(BinaryBitmap, Map)} with {@link DecodeHintType#TRY_HARDER}. The orientation and
+   * result points are reported relative to the image as passed. Only callable if
+   * {@link BinaryBitmap#isRotateSupported()} is true.
+   *
+   * @param image image to decode
+   * @param hints decode hints, or null
+   * @return the first barcode found
+   * @throws NotFoundException if no barcode was found
+   */
+  public final Result decodeRotated(BinaryBitmap image,
+                                    Map<DecodeHintType,?> hints) throws NotFoundException {
+    BinaryBitmap rotatedImage = image.rotateCounterClockwise();
+    Result result = doDecode(rotatedImage, hints);
+    // Record that we found it rotated 90 degrees CCW / 270 degrees CW
+    Map<ResultMetadataType,?> metadata = result.getResultMetadata();
+    int orientation = 270;
+    if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+      // But if we found it reversed in doDecode(), add in that result here:
+      orientation = (orientation +
+          (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+    }
+    result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+    // Update result points
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      int height = rotatedImage.getHeight();
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
+      }
+    }
+    return result;
+  }
+
   @Override
   public void reset() {
     // do nothing
@@ -105,6 +152,8 @@ public abstract class OneDReader implements Reader {
     int width = image.getWidth();
     int height = image.getHeight();
     BitArray row = new BitArray(width);
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
 
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
@@ -117,6 +166,7 @@ public abstract class OneDReader implements Reader {
 
     int middle = height / 2;
     for (int x = 0; x < maxLines; x++) {
+      DecodeDeadline.check(deadline);
 
       // Scanning from the middle out. Determine which row we're looking at next:
       int rowStepsAboveOrBelow = (x + 1) / 2;
@@ -129,10 +179,12 @@ public abstract class OneDReader implements Reader {
 
       // Estimate black point for this row and load it:
       try {
+        DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
         row = image.getBlackRow(rowNumber, row);
       } catch (NotFoundException ignored) {
         continue;
       }
+      DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
 
       // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
       // handle decoding upside down barcodes.
@@ -171,9 +223,164 @@ public abstract class OneDReader implements Reader {
       }
     }
 
+    DecodeDeadline.check(deadline);
     throw NotFoundException.getNotFoundInstance();
   }
 
+  /**
+   * Like {@link #doDecode(BinaryBitmap, Map)}, but along scanlines at several angles, sampled
+   * directly from the luminance data instead of rotating the whole image. Lines at every angle
+   * are tried from the center of the image outward, so a barcode near the center is found early
+   * whatever its orientation. Rows of the image have already been tried.
+   *
+   * @param image The image to decode
+   * @param hints Any hints that were requested
+   * @return The contents of the decoded barcode
+   * @throws NotFoundException if no barcode was found along any scanline
+   */
+  private Result doDecodeOmnidirectional(BinaryBitmap image,
+                                         Map<DecodeHintType,?> hints) throws NotFoundException {
+    LuminanceSource source = image.getLuminanceSource();
+    int width = source.getWidth();
+    int height = source.getHeight();
+    byte[] luminances = source.getMatrix();
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+
+    boolean tryHarder = hints.containsKey(DecodeHintType.TRY_HARDER);
+    int maxLines = tryHarder ? Integer.MAX_VALUE : 15;
+    if (hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+      // Points along a scanline are not in image coordinates
+      Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+      newHints.putAll(hints);
+      newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+      hints = newHints;
+    }
+
+    float middleX = width / 2.0f;
+    float middleY = height / 2.0f;
+    int rowNumber = 0;
+    for (int x = 0; x < maxLines; x++) {
+      DecodeDeadline.check(deadline);
+      int linesAboveOrBelow = (x + 1) / 2;
+      boolean isAbove = (x & 0x01) == 0;
+      boolean crossesImage = false;
+
+      for (float angle : SCANLINE_ANGLES) {
+        // Lines are spaced across the extent of the image perpendicular to them, as rows are
+        double radians = Math.toRadians(angle);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        int extent = (int) (Math.abs(sin) * width + Math.abs(cos) * height);
+        int lineStep = Math.max(1, extent >> (tryHarder ? 8 : 5));
+        int offset = lineStep * (isAbove ? linesAboveOrBelow : -linesAboveOrBelow);
+        DecodeTracer.stage(tracer, DecodeTracer.Stage.SAMPLING);
+        Scanline scanline =
+            Scanline.sample(luminances, width, height, middleX - sin * offset, middleY + cos * offset, angle);
+        if (scanline == null) {
+          continue;
+        }
+        crossesImage = true;
+
+        Result result = decodeScanline(scanline, rowNumber, angle, tracer, hints);
+        if (result != null) {
+          // A line crossing a corner of a barcode may read part of it as a shorter valid barcode.
+          // A line next to it on the side of the corner then misses the barcode, and one on the
+          // other side reads more of it. Accept the result only if parallel lines close by on both
+          // sides read the same.
+          int confirmStep = Math.min(extent >> 5, MAX_CONFIRM_DISTANCE);
+          boolean confirmed = true;
+          for (int side = -1; confirmed && side <= 1; side += 2) {
+            confirmed = confirmScanline(result, luminances, width, height, middleX, middleY,
+                offset + side * confirmStep / 2.0f, angle, rowNumber, tracer, hints) ||
+                confirmScanline(result, luminances, width, height, middleX, middleY,
+                offset + side * confirmStep, angle, rowNumber, tracer, hints);
+          }
+          if (confirmed) {
+            return result;
+          }
+        }
+        rowNumber++;
+      }
+
+      if (!crossesImage) {
+        // All lines have run off the image
+        break;
+      }
+    }
+
+    DecodeDeadline.check(deadline);
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  /**
+   * @return true if the scanline at the given offset from the center reads the same barcode
+   */
+  private boolean confirmScanline(Result result, byte[] luminances, int width, int height,
+                                  float middleX, float middleY, float offset, float angle, int rowNumber,
+                                  DecodeTracer tracer, Map<DecodeHintType,?> hints) {
+    double radians = Math.toRadians(angle);
+    float cos = (float) Math.cos(radians);
+    float sin = (float) Math.sin(radians);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.SAMPLING);
+    Scanline neighbour = Scanline.sample(luminances, width, height,
+        middleX - sin * offset, middleY + cos * offset, angle);
+    if (neighbour == null) {
+      return false;
+    }
+    Result confirmation = decodeScanline(neighbour, rowNumber, angle, tracer, hints);
+    return confirmation != null && confirmation.getBarcodeFormat() == result.getBarcodeFormat() &&
+        confirmation.getText().equals(result.getText());
+  }
+
+  /**
+   * Decodes a scanline in both directions.
+   *
+   * @return the result with its points in image coordinates, or null if none was found
+   */
+  private Result decodeScanline(Scanline scanline,
+                                int rowNumber,
+                                float angle,
+                                DecodeTracer tracer,
+                                Map<DecodeHintType,?> hints) {
+    BitArray row;
+    try {
+      DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
+      row = new GlobalHistogramBinarizer(scanline).getBlackRow(0, null);
+    } catch (NotFoundException ignored) {
+      return null;
+    }
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
+    int length = scanline.getWidth();
+    for (int attempt = 0; attempt < 2; attempt++) {
+      if (attempt == 1) {
+        row.reverse();
+      }
+      try {
+        Result result = decodeRow(rowNumber, row, hints);
+        // Orientation as reported for the rotated image in decode()
+        int orientation = (int) (360 - angle + (attempt == 1 ? 180 : 0)) % 360;
+        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+        ResultPoint[] points = result.getResultPoints();
+        if (points != null) {
+          for (int i = 0; i < points.length; i++) {
+            if (points[i] != null) {
+              ResultPoint point = points[i];
+              if (attempt == 1) {
+                point = new ResultPoint(length - point.getX() - 1, point.getY());
+              }
+              points[i] = scanline.toImage(point);
+            }
+          }
+        }
+        return result;
+      } catch (ReaderException re) {
+        // continue -- just couldn't decode this scanline
+      }
+    }
+    return null;
+  }
+
   /**
    * Records the size of successive runs of white and black pixels in a row, starting at a given point.
    * The values are recorded in the given array, and the number of runs recorded is equal to the size
@@ -191,49 +398,33 @@ public abstract class OneDReader implements Reader {
                                       int start,
                                       int[] counters) throws NotFoundException {
     int numCounters = counters.length;
-    Arrays.fill(counters, 0, numCounters, 0);
     int end = row.getSize();
     if (start >= end) {
       throw NotFoundException.getNotFoundInstance();
     }
-    boolean isWhite = !row.get(start);
-    int counterPosition = 0;
-    int i = start;
-    while (i < end) {
-      if (row.get(i) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (++counterPosition == numCounters) {
-          break;
-        } else {
-          counters[counterPosition] = 1;
-          isWhite = !isWhite;
-        }
-      }
-      i++;
-    }
-    // If we read fully the last section of pixels and filled up our counters -- or filled
-    // the last counter but ran off the side of the image, OK. Otherwise, a problem.
-    if (!(counterPosition == numCounters || (counterPosition == numCounters - 1 && i == end))) {
+    // The runs are shared by all readers looking at this row
+    RowRuns runs = row.getRuns();
+    int firstRun = runs.getRunAt(start);
+    // The last counter may run off the side of the image, but all counters must be filled
+    if (firstRun + numCounters > runs.getRunCount()) {
       throw NotFoundException.getNotFoundInstance();
     }
+    counters[0] = runs.getRunEnd(firstRun) - start;
+    for (int i = 1; i < numCounters; i++) {
+      counters[i] = runs.getRunLength(firstRun + i);
+    }
   }
 
   protected static void recordPatternInReverse(BitArray row, int start, int[] counters)
       throws NotFoundException {
-    // This could be more efficient I guess
-    int numTransitionsLeft = counters.length;
-    boolean last = row.get(start);
-    while (start > 0 && numTransitionsLeft >= 0) {
-      if (row.get(--start) != last) {
-        numTransitionsLeft--;
-        last = !last;
-      }
-    }
-    if (numTransitionsLeft >= 0) {
+    // Start counters.length runs before the one containing start, provided there is a
+    // transition before that run too
+    RowRuns runs = row.getRuns();
+    int firstRun = runs.getRunAt(start) - counters.length;
+    if (firstRun < 1) {
       throw NotFoundException.getNotFoundInstance();
     }
-    recordPattern(row, start + 1, counters);
+    recordPattern(row, runs.getRunStart(firstRun), counters);
   }
 
   /**
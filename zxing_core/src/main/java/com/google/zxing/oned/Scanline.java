@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ResultPoint;
+
+/**
+ * A straight line through an image, at any angle, sampled into a one pixel high image so that it
+ * can be binarized and decoded like a row. Samples are one pixel apart along the line, and are
+ * interpolated from the nearest pixels.
+ */
+final class Scanline extends LuminanceSource {
+
+  private final byte[] pixels;
+  private final float startX;
+  private final float startY;
+  private final float dx;
+  private final float dy;
+
+  private Scanline(byte[] pixels, float startX, float startY, float dx, float dy) {
+    super(pixels.length, 1);
+    this.pixels = pixels;
+    this.startX = startX;
+    this.startY = startY;
+    this.dx = dx;
+    this.dy = dy;
+  }
+
+  /**
+   * Samples the line through a point of an image, clipped to the image.
+   *
+   * @param luminances row-major luminance of the image
+   * @param width width of the image
+   * @param height height of the image
+   * @param x horizontal coordinate of a point on the line
+   * @param y vertical coordinate of a point on the line
+   * @param angle direction of the line, in degrees clockwise from left-to-right
+   * @return the sampled line, or null if it does not cross the image
+   */
+  static Scanline sample(byte[] luminances, int width, int height, float x, float y, float angle) {
+    double radians = Math.toRadians(angle);
+    float dx = (float) Math.cos(radians);
+    float dy = (float) Math.sin(radians);
+
+    // Range of distances from (x, y) along the line which fall inside the image
+    float min = -Float.MAX_VALUE;
+    float max = Float.MAX_VALUE;
+    if (Math.abs(dx) > 1.0e-6f) {
+      float a = -x / dx;
+      float b = (width - x) / dx;
+      min = Math.max(min, Math.min(a, b));
+      max = Math.min(max, Math.max(a, b));
+    } else if (x < 0 || x >= width) {
+      return null;
+    }
+    if (Math.abs(dy) > 1.0e-6f) {
+      float a = -y / dy;
+      float b = (height - y) / dy;
+      min = Math.max(min, Math.min(a, b));
+      max = Math.min(max, Math.max(a, b));
+    } else if (y < 0 || y >= height) {
+      return null;
+    }
+    int first = (int) Math.ceil(min);
+    int length = (int) Math.ceil(max) - first;
+    if (length < 3) {
+      return null;
+    }
+
+    float startX = x + first * dx;
+    float startY = y + first * dy;
+    byte[] pixels = new byte[length];
+    for (int i = 0; i < length; i++) {
+      // Interpolate between the four nearest pixels; bars crossed at an angle are often
+      // narrower than a pixel apart. Clamp, as rounding may put a sample just outside the image.
+      float sampleX = Math.min(width - 1.0f, Math.max(0.0f, startX + i * dx - 0.5f));
+      float sampleY = Math.min(height - 1.0f, Math.max(0.0f, startY + i * dy - 0.5f));
+      int left = (int) sampleX;
+      int top = (int) sampleY;
+      int right = Math.min(left + 1, width - 1);
+      int bottom = Math.min(top + 1, height - 1);
+      float fx = sampleX - left;
+      float fy = sampleY - top;
+      float upper = (luminances[top * width + left] & 0xff) * (1 - fx) +
+          (luminances[top * width + right] & 0xff) * fx;
+      float lower = (luminances[bottom * width + left] & 0xff) * (1 - fx) +
+          (luminances[bottom * width + right] & 0xff) * fx;
+      pixels[i] = (byte) (upper * (1 - fy) + lower * fy + 0.5f);
+    }
+    return new Scanline(pixels, startX, startY, dx, dy);
+  }
+
+  /**
+   * @param point a point found on this line, as on a row: x is the position along the line
+   * @return the point in the coordinates of the image
+   */
+  ResultPoint toImage(ResultPoint point) {
+    float position = point.getX();
+    return new ResultPoint(startX + position * dx, startY + position * dy);
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y != 0) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    return pixels;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    return pixels;
+  }
+
+}
@@ -23,6 +23,7 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 import com.google.zxing.common.detector.MathUtils;
 
 import java.util.Arrays;
@@ -284,39 +285,36 @@ public final class RSS14Reader extends AbstractRSSReader {
     counters[3] = 0;
 
     int width = row.getSize();
-    boolean isWhite = false;
-    int rowOffset = 0;
-    while (rowOffset < width) {
-      isWhite = !row.get(rowOffset);
-      if (rightFinderPattern == isWhite) {
-        // Will encounter white first when searching for right finder pattern
-        break;
-      }
-      rowOffset++;
-    }
+    // Will encounter white first when searching for right finder pattern
+    int rowOffset = rightFinderPattern ? row.getNextUnset(0) : row.getNextSet(0);
 
     int counterPosition = 0;
     int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == 3) {
-          if (isFinderPattern(counters)) {
-            return new int[]{patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          counters[0] = counters[2];
-          counters[1] = counters[3];
-          counters[2] = 0;
-          counters[3] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+    RowRuns runs = row.getRuns();
+    int run = rowOffset < width ? runs.getRunAt(rowOffset) : 0;
+    int x = rowOffset;
+    while (x < width) {
+      // Count the rest of the current run at once
+      int runEnd = runs.getRunEnd(run++);
+      counters[counterPosition] += runEnd - x;
+      x = runEnd;
+      if (x == width) {
+        break;
+      }
+      if (counterPosition == 3) {
+        if (isFinderPattern(counters)) {
+          return new int[]{patternStart, x};
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+        patternStart += counters[0] + counters[1];
+        counters[0] = counters[2];
+        counters[1] = counters[3];
+        counters[2] = 0;
+        counters[3] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      counters[counterPosition] = 0;
     }
     throw NotFoundException.getNotFoundInstance();
 
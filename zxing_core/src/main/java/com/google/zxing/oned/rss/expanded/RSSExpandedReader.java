@@ -27,12 +27,14 @@
 package com.google.zxing.oned.rss.expanded;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRuns;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.oned.rss.AbstractRSSReader;
 import com.google.zxing.oned.rss.DataCharacter;
@@ -119,6 +121,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   private final List<ExpandedRow> rows = new ArrayList<>();
   private final int [] startEnd = new int[2];
   private boolean startFromEven;
+  private DecodeDeadline deadline;
 
   @Override
   public Result decodeRow(int rowNumber,
@@ -126,12 +129,14 @@ public final class RSSExpandedReader extends AbstractRSSReader {
                           Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
     // Rows can start with even pattern in case in prev rows there where odd number of patters.
     // So lets try twice
+    this.deadline = DecodeDeadline.fromHints(hints);
     this.pairs.clear();
     this.startFromEven = false;
     try {
       return constructResult(decodeRow2pairs(rowNumber, row));
     } catch (NotFoundException e) {
-      // OK
+      // OK, unless out of time
+      DecodeDeadline.check(deadline);
     }
 
     this.pairs.clear();
@@ -183,7 +188,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     throw NotFoundException.getNotFoundInstance();
   }
 
-  private List<ExpandedPair> checkRows(boolean reverse) {
+  private List<ExpandedPair> checkRows(boolean reverse) throws NotFoundException {
     // Limit number of rows we are checking
     // We use recursive algorithm with pure complexity and don't want it to take forever
     // Stacked barcode can have up to 11 rows, so 25 seems reasonable enough
@@ -208,6 +213,8 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       Collections.reverse(this.rows);
     }
 
+    // The search may have been given up rather than failed
+    DecodeDeadline.check(deadline);
     return ps;
   }
 
@@ -215,6 +222,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   // Recursion is used to implement backtracking
   private List<ExpandedPair> checkRows(List<ExpandedRow> collectedRows, int currentRow) throws NotFoundException {
     for (int i = currentRow; i < rows.size(); i++) {
+      DecodeDeadline.check(deadline);
       ExpandedRow row = rows.get(i);
       this.pairs.clear();
       for (ExpandedRow collectedRow : collectedRows) {
@@ -469,48 +477,46 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       searchingEvenPair = !searchingEvenPair;
     }
 
-    boolean isWhite = false;
-    while (rowOffset < width) {
-      isWhite = !row.get(rowOffset);
-      if (!isWhite) {
-        break;
-      }
-      rowOffset++;
-    }
+    rowOffset = row.getNextSet(rowOffset);
 
     int counterPosition = 0;
     int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == 3) {
-          if (searchingEvenPair) {
-            reverseCounters(counters);
-          }
-
-          if (isFinderPattern(counters)) {
-            this.startEnd[0] = patternStart;
-            this.startEnd[1] = x;
-            return;
-          }
+    RowRuns runs = row.getRuns();
+    int run = rowOffset < width ? runs.getRunAt(rowOffset) : 0;
+    int x = rowOffset;
+    while (x < width) {
+      // Count the rest of the current run at once
+      int runEnd = runs.getRunEnd(run++);
+      counters[counterPosition] += runEnd - x;
+      x = runEnd;
+      if (x == width) {
+        break;
+      }
+      if (counterPosition == 3) {
+        if (searchingEvenPair) {
+          reverseCounters(counters);
+        }
 
-          if (searchingEvenPair) {
-            reverseCounters(counters);
-          }
+        if (isFinderPattern(counters)) {
+          this.startEnd[0] = patternStart;
+          this.startEnd[1] = x;
+          return;
+        }
 
-          patternStart += counters[0] + counters[1];
-          counters[0] = counters[2];
-          counters[1] = counters[3];
-          counters[2] = 0;
-          counters[3] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+        if (searchingEvenPair) {
+          reverseCounters(counters);
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+
+        patternStart += counters[0] + counters[1];
+        counters[0] = counters[2];
+        counters[1] = counters[3];
+        counters[2] = 0;
+        counters[3] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      counters[counterPosition] = 0;
     }
     throw NotFoundException.getNotFoundInstance();
   }
@@ -17,6 +17,9 @@
 package com.google.zxing.pdf417.decoder;
 
 import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeDeadline;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -30,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Guenther Grau
@@ -56,6 +60,28 @@ public final class PDF417ScanningDecoder {
                                      ResultPoint imageBottomRight,
                                      int minCodewordWidth,
                                      int maxCodewordWidth) throws NotFoundException, FormatException, ChecksumException {
+    return decode(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight, minCodewordWidth,
+        maxCodewordWidth, null);
+  }
+
+  /**
+   * Like {@link #decode(BitMatrix, ResultPoint, ResultPoint, ResultPoint, ResultPoint, int, int)}, but gives up
+   * when the {@link DecodeHintType#DEADLINE} expires, between barcode columns and between attempts at resolving
+   * ambiguous codewords, and reports its stages to the {@link DecodeHintType#TRACER}.
+   *
+   * @param hints decoding hints that should be used to influence decoding, or null
+   */
+  public static DecoderResult decode(BitMatrix image,
+                                     ResultPoint imageTopLeft,
+                                     ResultPoint imageBottomLeft,
+                                     ResultPoint imageTopRight,
+                                     ResultPoint imageBottomRight,
+                                     int minCodewordWidth,
+                                     int maxCodewordWidth,
+                                     Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException, ChecksumException {
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer.stage(DecodeTracer.fromHints(hints), DecodeTracer.Stage.SAMPLING);
     BoundingBox boundingBox = new BoundingBox(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight);
     DetectionResultRowIndicatorColumn leftRowIndicatorColumn = null;
     DetectionResultRowIndicatorColumn rightRowIndicatorColumn = null;
@@ -88,6 +114,7 @@ public final class PDF417ScanningDecoder {
 
     boolean leftToRight = leftRowIndicatorColumn != null;
     for (int barcodeColumnCount = 1; barcodeColumnCount <= maxBarcodeColumn; barcodeColumnCount++) {
+      DecodeDeadline.check(deadline);
       int barcodeColumn = leftToRight ? barcodeColumnCount : maxBarcodeColumn - barcodeColumnCount;
       if (detectionResult.getDetectionResultColumn(barcodeColumn) != null) {
         // This will be the case for the opposite row indicator column, which doesn't need to be decoded again.
@@ -121,7 +148,7 @@ public final class PDF417ScanningDecoder {
         }
       }
     }
-    return createDecoderResult(detectionResult);
+    return createDecoderResult(detectionResult, hints);
   }
 
   private static DetectionResult merge(DetectionResultRowIndicatorColumn leftRowIndicatorColumn,
@@ -249,8 +276,8 @@ public final class PDF417ScanningDecoder {
     }
   }
 
-  private static DecoderResult createDecoderResult(DetectionResult detectionResult) throws FormatException,
-      ChecksumException, NotFoundException {
+  private static DecoderResult createDecoderResult(DetectionResult detectionResult, Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException, NotFoundException {
     BarcodeValue[][] barcodeMatrix = createBarcodeMatrix(detectionResult);
     adjustCodewordCount(detectionResult, barcodeMatrix);
     Collection<Integer> erasures = new ArrayList<>();
@@ -276,7 +303,8 @@ public final class PDF417ScanningDecoder {
       ambiguousIndexValues[i] = ambiguousIndexValuesList.get(i);
     }
     return createDecoderResultFromAmbiguousValues(detectionResult.getBarcodeECLevel(), codewords,
-        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues);
+        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues,
+        hints);
   }
 
   /**
@@ -291,22 +319,27 @@ public final class PDF417ScanningDecoder {
    * @param ambiguousIndexes array with the indexes that have more than one most likely value
    * @param ambiguousIndexValues two dimensional array that contains the ambiguous values. The first dimension must
    * be the same length as the ambiguousIndexes array
+   * @param hints decoding hints; the deadline is checked before each try
    */
   private static DecoderResult createDecoderResultFromAmbiguousValues(int ecLevel,
                                                                       int[] codewords,
                                                                       int[] erasureArray,
                                                                       int[] ambiguousIndexes,
-                                                                      int[][] ambiguousIndexValues)
-      throws FormatException, ChecksumException {
+                                                                      int[][] ambiguousIndexValues,
+                                                                      Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException, NotFoundException {
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
     int[] ambiguousIndexCount = new int[ambiguousIndexes.length];
 
     int tries = 100;
     while (tries-- > 0) {
+      DecodeDeadline.check(deadline);
       for (int i = 0; i < ambiguousIndexCount.length; i++) {
         codewords[ambiguousIndexes[i]] = ambiguousIndexValues[i][ambiguousIndexCount[i]];
       }
       try {
-        return decodeCodewords(codewords, ecLevel, erasureArray);
+        return decodeCodewords(codewords, ecLevel, erasureArray, tracer);
       } catch (ChecksumException ignored) {
         //
       }
@@ -520,17 +553,19 @@ public final class PDF417ScanningDecoder {
         codewordSize <= maxCodewordWidth + CODEWORD_SKEW_SIZE;
   }
 
-  private static DecoderResult decodeCodewords(int[] codewords, int ecLevel, int[] erasures) throws FormatException,
-      ChecksumException {
+  private static DecoderResult decodeCodewords(int[] codewords, int ecLevel, int[] erasures, DecodeTracer tracer)
+      throws FormatException, ChecksumException {
     if (codewords.length == 0) {
       throw FormatException.getFormatInstance();
     }
 
     int numECCodewords = 1 << (ecLevel + 1);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.ERROR_CORRECTION);
     int correctedErrorsCount = correctErrors(codewords, erasures, numECCodewords);
     verifyCodewordCount(codewords, numECCodewords);
 
     // Decode the codewords
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.PARSING);
     DecoderResult decoderResult = DecodedBitStreamParser.decode(codewords, String.valueOf(ecLevel));
     decoderResult.setErrorsCorrected(correctedErrorsCount);
     decoderResult.setErasures(erasures.length);
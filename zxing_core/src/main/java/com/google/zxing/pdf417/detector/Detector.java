@@ -18,6 +18,7 @@ package com.google.zxing.pdf417.detector;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitMatrix;
@@ -76,7 +77,10 @@ public final class Detector {
     // different binarizers
     //boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
 
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
     BitMatrix bitMatrix = image.getBlackMatrix();
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
 
     List<ResultPoint[]> barcodeCoordinates = detect(multiple, bitMatrix);
     if (barcodeCoordinates.isEmpty()) {
@@ -268,25 +272,27 @@ public final class Detector {
     int counterPosition = 0;
     int patternLength = pattern.length;
     for (boolean isWhite = whiteFirst; x < width; x++) {
-      boolean pixel = matrix.get(x, row);
-      if (pixel != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
-            return new int[] {patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+      // Skip over the rest of the current run a word at a time
+      int runEnd = Math.min(width, isWhite ? matrix.getNextSet(x, row) : matrix.getNextUnset(x, row));
+      counters[counterPosition] += runEnd - x;
+      x = runEnd;
+      if (x == width) {
+        break;
+      }
+      if (counterPosition == patternLength - 1) {
+        if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
+          return new int[] {patternStart, x};
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+        patternStart += counters[0] + counters[1];
+        System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
+        counters[counterPosition - 1] = 0;
+        counters[counterPosition] = 0;
+        counterPosition--;
+      } else {
+        counterPosition++;
       }
+      counters[counterPosition] = 1;
+      isWhite = !isWhite;
     }
     if (counterPosition == patternLength - 1 &&
         patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
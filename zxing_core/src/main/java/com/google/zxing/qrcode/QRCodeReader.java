@@ -20,6 +20,7 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
@@ -44,6 +45,8 @@ import java.util.Map;
 public class QRCodeReader implements Reader {
 
   private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
+  // Smaller scaled down images are not worth it, and may be too small to find anything on
+  private static final int MIN_PYRAMID_SIZE = 100;
 
   private final Decoder decoder = new Decoder();
 
@@ -69,12 +72,16 @@ public class QRCodeReader implements Reader {
       throws NotFoundException, ChecksumException, FormatException {
     DecoderResult decoderResult;
     ResultPoint[] points;
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.BINARIZATION);
+    BitMatrix matrix = image.getBlackMatrix();
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.DETECTION);
     if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-      BitMatrix bits = extractPureBits(image.getBlackMatrix());
+      BitMatrix bits = extractPureBits(matrix);
       decoderResult = decoder.decode(bits, hints);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect(hints);
+      DetectorResult detectorResult = detect(image, matrix, hints);
       decoderResult = decoder.decode(detectorResult.getBits(), hints);
       points = detectorResult.getPoints();
     }
@@ -102,6 +109,27 @@ public class QRCodeReader implements Reader {
     return result;
   }
 
+  /**
+   * Detects a QR code at full resolution, or with {@link DecodeHintType#PYRAMID_SCALE}, on a
+   * scaled down copy of the image first.
+   */
+  private static DetectorResult detect(BinaryBitmap image, BitMatrix matrix, Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException {
+    Object scale = hints == null ? null : hints.get(DecodeHintType.PYRAMID_SCALE);
+    if (scale instanceof Integer && (Integer) scale > 1 &&
+        Math.min(image.getWidth(), image.getHeight()) / (Integer) scale >= MIN_PYRAMID_SIZE) {
+      try {
+        BitMatrix scaledMatrix = image.scaleDown((Integer) scale).getBlackMatrix();
+        return new Detector(matrix).detect(scaledMatrix, (Integer) scale, hints);
+      } catch (NotFoundException | FormatException e) {
+        if (!hints.containsKey(DecodeHintType.TRY_HARDER)) {
+          throw e;
+        }
+      }
+    }
+    return new Detector(matrix).detect(hints);
+  }
+
   @Override
   public void reset() {
     // do nothing
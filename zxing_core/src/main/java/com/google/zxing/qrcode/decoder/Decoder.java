@@ -18,6 +18,7 @@ package com.google.zxing.qrcode.decoder;
 
 import com.google.zxing.ChecksumException;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DecoderResult;
@@ -145,6 +146,8 @@ public final class Decoder {
     byte[] resultBytes = new byte[totalBytes];
     int resultOffset = 0;
 
+    DecodeTracer tracer = DecodeTracer.fromHints(hints);
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.ERROR_CORRECTION);
     // Error-correct and copy data blocks together into a stream of bytes
     for (DataBlock dataBlock : dataBlocks) {
       byte[] codewordBytes = dataBlock.getCodewords();
@@ -156,6 +159,7 @@ public final class Decoder {
     }
 
     // Decode the contents of that stream of bytes
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.PARSING);
     return DecodedBitStreamParser.decode(resultBytes, version, ecLevel, hints);
   }
 
@@ -17,6 +17,7 @@
 package com.google.zxing.qrcode.detector;
 
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.DecodeTracer;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -40,6 +41,7 @@ public class Detector {
 
   private final BitMatrix image;
   private ResultPointCallback resultPointCallback;
+  private DecodeTracer tracer;
 
   public Detector(BitMatrix image) {
     this.image = image;
@@ -76,6 +78,7 @@ public class Detector {
 
     resultPointCallback = hints == null ? null :
         (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    tracer = DecodeTracer.fromHints(hints);
 
     FinderPatternFinder finder = new FinderPatternFinder(image, resultPointCallback);
     FinderPatternInfo info = finder.find(hints);
@@ -83,6 +86,97 @@ public class Detector {
     return processFinderPatternInfo(info);
   }
 
+  /**
+   * <p>Detects a QR Code from finder patterns located on a copy of the image scaled down by
+   * {@code scale}. The finder patterns are then centered again, and the alignment pattern and
+   * the modules are found, on the full resolution image.</p>
+   *
+   * @param scaledImage the image scaled down
+   * @param scale the factor the image is scaled down by
+   * @param hints optional hints to detector
+   * @return {@link DetectorResult} encapsulating results of detecting a QR Code
+   * @throws NotFoundException if QR Code cannot be found
+   * @throws FormatException if a QR Code cannot be decoded
+   */
+  public final DetectorResult detect(BitMatrix scaledImage, final int scale, Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException {
+
+    final ResultPointCallback callback = hints == null ? null :
+        (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    resultPointCallback = callback;
+    tracer = DecodeTracer.fromHints(hints);
+
+    ResultPointCallback scaledCallback = callback == null ? null : new ResultPointCallback() {
+      @Override
+      public void foundPossibleResultPoint(ResultPoint point) {
+        callback.foundPossibleResultPoint(new ResultPoint(point.getX() * scale, point.getY() * scale));
+      }
+    };
+    FinderPatternFinder finder = new FinderPatternFinder(scaledImage, scaledCallback);
+    FinderPatternInfo info = finder.find(hints);
+
+    return processFinderPatternInfo(new FinderPatternInfo(new FinderPattern[] {
+        refineFinderPattern(info.getBottomLeft(), scale),
+        refineFinderPattern(info.getTopLeft(), scale),
+        refineFinderPattern(info.getTopRight(), scale)}));
+  }
+
+  /**
+   * <p>Maps a finder pattern found on a scaled down image to this image, and centers it on the
+   * black center stone of the pattern, which the scaled down image only locates to within a
+   * pixel or so.</p>
+   */
+  private FinderPattern refineFinderPattern(FinderPattern pattern, int scale) {
+    float moduleSize = pattern.getEstimatedModuleSize() * scale;
+    float x = pattern.getX() * scale;
+    float y = pattern.getY() * scale;
+    int centerX = (int) x;
+    int centerY = (int) y;
+    if (centerX < 0 || centerX >= image.getWidth() || centerY < 0 || centerY >= image.getHeight() ||
+        !image.get(centerX, centerY)) {
+      return new FinderPattern(x, y, moduleSize);
+    }
+    // The stone is 3 modules wide, more along a diagonal
+    int maxRun = (int) (3 * moduleSize) + scale;
+    // Across, then down through the new center, then across again
+    for (int i = 0; i < 3; i++) {
+      int dx = i == 1 ? 0 : 1;
+      int dy = 1 - dx;
+      int before = blackRunLength(centerX, centerY, -dx, -dy, maxRun);
+      int after = blackRunLength(centerX, centerY, dx, dy, maxRun);
+      if (before < 0 || after < 0) {
+        return new FinderPattern(pattern.getX() * scale, pattern.getY() * scale, moduleSize);
+      }
+      float center = (after - before + 1) / 2.0f;
+      if (dx == 1) {
+        x = centerX + center;
+        centerX = (int) x;
+      } else {
+        y = centerY + center;
+        centerY = (int) y;
+      }
+    }
+    return new FinderPattern(x, y, moduleSize);
+  }
+
+  /**
+   * @return the number of black pixels next to (fromX, fromY) in direction (dx, dy), or -1 if
+   *  there are more than maxRun
+   */
+  private int blackRunLength(int fromX, int fromY, int dx, int dy, int maxRun) {
+    int run = 0;
+    int x = fromX + dx;
+    int y = fromY + dy;
+    while (x >= 0 && x < image.getWidth() && y >= 0 && y < image.getHeight() && image.get(x, y)) {
+      if (++run > maxRun) {
+        return -1;
+      }
+      x += dx;
+      y += dy;
+    }
+    return run;
+  }
+
   protected final DetectorResult processFinderPatternInfo(FinderPatternInfo info)
       throws NotFoundException, FormatException {
 
@@ -130,6 +224,7 @@ public class Detector {
     PerspectiveTransform transform =
         createTransform(topLeft, topRight, bottomLeft, alignmentPattern, dimension);
 
+    DecodeTracer.stage(tracer, DecodeTracer.Stage.SAMPLING);
     BitMatrix bits = sampleGrid(image, transform, dimension);
 
     ResultPoint[] points;
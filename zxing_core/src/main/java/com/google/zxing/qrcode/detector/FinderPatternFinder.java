@@ -16,8 +16,7 @@
 
 package com.google.zxing.qrcode.detector;
 
-import android.os.Build;
-
+import com.google.zxing.DecodeDeadline;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -93,9 +92,11 @@ public class FinderPatternFinder {
       iSkip = MIN_SKIP;
     }
 
+    DecodeDeadline deadline = DecodeDeadline.fromHints(hints);
     boolean done = false;
     int[] stateCount = new int[5];
     for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
+      DecodeDeadline.check(deadline);
       // Get a row of black/white values
       clearCounts(stateCount);
       int currentState = 0;
@@ -614,10 +615,7 @@ public class FinderPatternFinder {
       throw NotFoundException.getNotFoundInstance();
     }
 
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N)
-      possibleCenters.sort(moduleComparator);
-     else
-       Collections.sort(possibleCenters, moduleComparator);
+    Collections.sort(possibleCenters, moduleComparator);
 
     double distortion = Double.MAX_VALUE;
     double[] squares = new double[3];
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link RowRuns} against the bits of random rows, and that modifying a row updates them.
+ */
+public final class RowRunsTestCase {
+
+  @Test
+  public void testRandomRows() {
+    Random random = new Random(0xBEEF);
+    for (int i = 0; i < 1000; i++) {
+      checkRuns(randomRow(random, 1 + random.nextInt(300)));
+    }
+  }
+
+  @Test
+  public void testSingleRun() {
+    for (int size : new int[] { 1, 31, 32, 33, 64, 100 }) {
+      BitArray row = new BitArray(size);
+      checkRuns(row);
+      row.setRange(0, size);
+      checkRuns(row);
+    }
+  }
+
+  @Test
+  public void testModifiedRow() {
+    Random random = new Random(0xBEEF);
+    BitArray row = randomRow(random, 200);
+    checkRuns(row);
+    row.flip(0);
+    checkRuns(row);
+    row.set(199);
+    checkRuns(row);
+    row.setRange(50, 70);
+    checkRuns(row);
+    row.reverse();
+    checkRuns(row);
+    row.flip();
+    checkRuns(row);
+    row.clear();
+    checkRuns(row);
+    row.appendBit(true);
+    checkRuns(row);
+  }
+
+  /**
+   * @return row of runs mostly 1 to 8 bits long, now and then much longer
+   */
+  public static BitArray randomRow(Random random, int size) {
+    BitArray row = new BitArray(size);
+    boolean set = random.nextBoolean();
+    int position = 0;
+    while (position < size) {
+      int length = random.nextInt(10) == 0 ? 1 + random.nextInt(70) : 1 + random.nextInt(8);
+      int end = Math.min(size, position + length);
+      if (set) {
+        row.setRange(position, end);
+      }
+      position = end;
+      set = !set;
+    }
+    return row;
+  }
+
+  private static void checkRuns(BitArray row) {
+    RowRuns runs = row.getRuns();
+    assertEquals(row.getSize(), runs.getSize());
+    int position = 0;
+    for (int run = 0; run < runs.getRunCount(); run++) {
+      assertEquals(position, runs.getRunStart(run));
+      boolean set = row.get(position);
+      assertEquals(set, runs.isSet(run));
+      do {
+        assertEquals(run, runs.getRunAt(position));
+        position++;
+      } while (position < row.getSize() && row.get(position) == set);
+      assertEquals(position, runs.getRunEnd(run));
+      assertEquals(position - runs.getRunStart(run), runs.getRunLength(run));
+    }
+    assertEquals(row.getSize(), position);
+  }
+
+}
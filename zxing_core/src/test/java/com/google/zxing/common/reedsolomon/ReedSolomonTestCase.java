@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Encodes random messages, corrupts them and checks that {@link ReedSolomonDecoder} restores
+ * every message with up to t = ecSize / 2 errors and rejects messages with t + 1 errors.
+ *
+ * Beyond t errors a corrupted message may happen to lie within t errors of another codeword,
+ * which no decoder can detect. The error-correction sizes of the t + 1 checks are large enough
+ * for this to be very unlikely, and the random seed is fixed.
+ */
+public final class ReedSolomonTestCase {
+
+  private static final int ITERATIONS = 10;
+
+  @Test
+  public void testQRCode() {
+    // versions 1-L, 1-H, 10-Q and a version 40 block
+    checkRecovery(GenericGF.QR_CODE_FIELD_256, 19, 7);
+    checkRecovery(GenericGF.QR_CODE_FIELD_256, 9, 17);
+    checkRecovery(GenericGF.QR_CODE_FIELD_256, 43, 24);
+    checkRecovery(GenericGF.QR_CODE_FIELD_256, 118, 30);
+    checkTooManyErrors(GenericGF.QR_CODE_FIELD_256, 43, 24);
+    checkTooManyErrors(GenericGF.QR_CODE_FIELD_256, 118, 30);
+  }
+
+  @Test
+  public void testDataMatrix() {
+    // 10x10, 32x32 and one of the blocks of 144x144
+    checkRecovery(GenericGF.DATA_MATRIX_FIELD_256, 3, 5);
+    checkRecovery(GenericGF.DATA_MATRIX_FIELD_256, 62, 36);
+    checkRecovery(GenericGF.DATA_MATRIX_FIELD_256, 156, 62);
+    checkTooManyErrors(GenericGF.DATA_MATRIX_FIELD_256, 62, 36);
+    checkTooManyErrors(GenericGF.DATA_MATRIX_FIELD_256, 156, 62);
+  }
+
+  @Test
+  public void testAztec() {
+    // mode messages of compact and full symbols
+    checkRecovery(GenericGF.AZTEC_PARAM, 2, 5);
+    checkRecovery(GenericGF.AZTEC_PARAM, 4, 6);
+    checkRecovery(GenericGF.AZTEC_DATA_6, 20, 20);
+    checkRecovery(GenericGF.AZTEC_DATA_8, 100, 60);
+    checkRecovery(GenericGF.AZTEC_DATA_10, 200, 100);
+    checkRecovery(GenericGF.AZTEC_DATA_12, 300, 100);
+    checkTooManyErrors(GenericGF.AZTEC_DATA_6, 20, 20);
+    checkTooManyErrors(GenericGF.AZTEC_DATA_8, 100, 60);
+    checkTooManyErrors(GenericGF.AZTEC_DATA_10, 200, 100);
+    checkTooManyErrors(GenericGF.AZTEC_DATA_12, 300, 100);
+  }
+
+  @Test
+  public void testNoErrors() throws ReedSolomonException {
+    Random random = new Random(0xBEEF);
+    int[] message = encode(GenericGF.QR_CODE_FIELD_256, random, 16, 10);
+    int[] received = message.clone();
+    new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256).decode(received, 10);
+    assertArrayEquals(message, received);
+  }
+
+  private static void checkRecovery(GenericGF field, int dataSize, int ecSize) {
+    Random random = new Random(0xBEEF);
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+    for (int i = 0; i < ITERATIONS; i++) {
+      int[] message = encode(field, random, dataSize, ecSize);
+      for (int errors = 1; errors <= ecSize / 2; errors++) {
+        int[] received = message.clone();
+        corrupt(received, errors, random, field.getSize());
+        try {
+          decoder.decode(received, ecSize);
+        } catch (ReedSolomonException e) {
+          fail(describe(field, dataSize, ecSize, errors) + " not corrected: " + e.getMessage());
+        }
+        assertArrayEquals(describe(field, dataSize, ecSize, errors) + " corrected wrongly",
+            message, received);
+      }
+    }
+  }
+
+  private static void checkTooManyErrors(GenericGF field, int dataSize, int ecSize) {
+    Random random = new Random(0xBEEF);
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+    int errors = ecSize / 2 + 1;
+    for (int i = 0; i < ITERATIONS; i++) {
+      int[] received = encode(field, random, dataSize, ecSize);
+      corrupt(received, errors, random, field.getSize());
+      try {
+        decoder.decode(received, ecSize);
+        fail(describe(field, dataSize, ecSize, errors) + " not rejected: " + Arrays.toString(received));
+      } catch (ReedSolomonException e) {
+        // good
+      }
+    }
+  }
+
+  private static int[] encode(GenericGF field, Random random, int dataSize, int ecSize) {
+    int[] message = new int[dataSize + ecSize];
+    for (int i = 0; i < dataSize; i++) {
+      message[i] = random.nextInt(field.getSize());
+    }
+    new ReedSolomonEncoder(field).encode(message, ecSize);
+    return message;
+  }
+
+  /**
+   * Changes the given number of distinct codewords, including now and then the first and the
+   * last one, into other values.
+   */
+  private static void corrupt(int[] received, int howMany, Random random, int max) {
+    BitSet corrupted = new BitSet(received.length);
+    for (int j = 0; j < howMany; j++) {
+      int location;
+      if (j == 0 && random.nextInt(4) == 0) {
+        location = random.nextBoolean() ? 0 : received.length - 1;
+      } else {
+        do {
+          location = random.nextInt(received.length);
+        } while (corrupted.get(location));
+      }
+      corrupted.set(location);
+      received[location] ^= 1 + random.nextInt(max - 1);
+    }
+  }
+
+  private static String describe(GenericGF field, int dataSize, int ecSize, int errors) {
+    return errors + " errors in " + dataSize + " data + " + ecSize + " EC codewords of " + field;
+  }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.RowRunsTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Checks {@link OneDReader#recordPattern(BitArray, int, int[])} and
+ * {@link OneDReader#recordPatternInReverse(BitArray, int, int[])}, which look up the runs of the
+ * row, against the loops over single pixels they replaced, and decodes whole EAN-13 and Code 128
+ * rows with them.
+ */
+public final class RecordPatternTestCase {
+
+  @Test
+  public void testRandomRows() {
+    Random random = new Random(0xBEEF);
+    for (int i = 0; i < 1000; i++) {
+      BitArray row = RowRunsTestCase.randomRow(random, 1 + random.nextInt(200));
+      int size = row.getSize();
+      for (int numCounters = 1; numCounters <= 9; numCounters++) {
+        // Both ends of the row, and the first and last bit of runs
+        checkStart(row, 0, numCounters);
+        checkStart(row, size - 1, numCounters);
+        checkStart(row, size, numCounters);
+        int start = random.nextInt(size);
+        checkStart(row, start, numCounters);
+        checkStart(row, row.getRuns().getRunStart(row.getRuns().getRunAt(start)), numCounters);
+        checkStart(row, row.getRuns().getRunEnd(row.getRuns().getRunAt(start)) - 1, numCounters);
+      }
+    }
+  }
+
+  @Test
+  public void testRunsTouchingEdges() {
+    // The first and last counters end at the edges of the row
+    BitArray row = new BitArray(12);
+    row.setRange(0, 3);
+    row.setRange(5, 6);
+    row.setRange(9, 12);
+    for (int start = 0; start <= row.getSize(); start++) {
+      for (int numCounters = 1; numCounters <= 6; numCounters++) {
+        checkStart(row, start, numCounters);
+      }
+    }
+  }
+
+  @Test
+  public void testEAN13() throws Exception {
+    String[] contents = { "5901234123457", "4006381333931", "0012345678905", "9780201379624" };
+    for (String content : contents) {
+      checkDecodeRow(new EAN13Writer(), new EAN13Reader(), BarcodeFormat.EAN_13, content, 3, 4);
+    }
+  }
+
+  @Test
+  public void testCode128() throws Exception {
+    String[] contents = { "ZXing", "1234567890", "Hello, world! 0123", "a", "00112233" };
+    for (String content : contents) {
+      checkDecodeRow(new Code128Writer(), new Code128Reader(), BarcodeFormat.CODE_128, content, 0, 0);
+    }
+  }
+
+  private static void checkStart(BitArray row, int start, int numCounters) {
+    String description = "start " + start + ", " + numCounters + " counters, row " + row;
+    int[] expected = new int[numCounters];
+    boolean expectedFound = oldRecordPattern(row, start, expected);
+    int[] counters = new int[numCounters];
+    boolean found = recordPattern(row, start, counters, false);
+    assertEquals(description, expectedFound, found);
+    if (found) {
+      assertArrayEquals(description, expected, counters);
+    }
+
+    if (start < row.getSize()) {
+      expectedFound = oldRecordPatternInReverse(row, start, expected);
+      found = recordPattern(row, start, counters, true);
+      assertEquals("reverse " + description, expectedFound, found);
+      if (found) {
+        assertArrayEquals("reverse " + description, expected, counters);
+      }
+    }
+  }
+
+  private static boolean recordPattern(BitArray row, int start, int[] counters, boolean reverse) {
+    try {
+      if (reverse) {
+        OneDReader.recordPatternInReverse(row, start, counters);
+      } else {
+        OneDReader.recordPattern(row, start, counters);
+      }
+      return true;
+    } catch (NotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Encodes the contents at a few module widths and decodes the row, with quiet zones of 10
+   * modules and with the smallest ones the reader accepts, which end at the edges of the row.
+   */
+  private static void checkDecodeRow(OneDimensionalCodeWriter writer,
+                                     OneDReader reader,
+                                     BarcodeFormat format,
+                                     String content,
+                                     int minLeftMargin,
+                                     int minRightMargin) throws Exception {
+    boolean[] code = writer.encode(content);
+    for (int i = 0; i < 2; i++) {
+      int leftMargin = i == 0 ? minLeftMargin : 10;
+      int rightMargin = i == 0 ? minRightMargin : 10;
+      for (int moduleWidth = 1; moduleWidth <= 3; moduleWidth++) {
+        BitArray row = new BitArray((leftMargin + code.length + rightMargin) * moduleWidth);
+        for (int j = 0; j < code.length; j++) {
+          if (code[j]) {
+            int start = (leftMargin + j) * moduleWidth;
+            row.setRange(start, start + moduleWidth);
+          }
+        }
+        Result result = reader.decodeRow(0, row, null);
+        assertNotNull(result);
+        assertEquals(format + " with margins " + leftMargin + " and " + rightMargin +
+            ", module width " + moduleWidth,
+            content, result.getText());
+        assertEquals(format, result.getBarcodeFormat());
+      }
+    }
+  }
+
+  // The loops over single pixels recordPattern and recordPatternInReverse used before
+
+  private static boolean oldRecordPattern(BitArray row, int start, int[] counters) {
+    int numCounters = counters.length;
+    Arrays.fill(counters, 0, numCounters, 0);
+    int end = row.getSize();
+    if (start >= end) {
+      return false;
+    }
+    boolean isWhite = !row.get(start);
+    int counterPosition = 0;
+    int i = start;
+    while (i < end) {
+      if (row.get(i) != isWhite) {
+        counters[counterPosition]++;
+      } else {
+        if (++counterPosition == numCounters) {
+          break;
+        } else {
+          counters[counterPosition] = 1;
+          isWhite = !isWhite;
+        }
+      }
+      i++;
+    }
+    return counterPosition == numCounters || (counterPosition == numCounters - 1 && i == end);
+  }
+
+  private static boolean oldRecordPatternInReverse(BitArray row, int start, int[] counters) {
+    int numTransitionsLeft = counters.length;
+    boolean last = row.get(start);
+    while (start > 0 && numTransitionsLeft >= 0) {
+      if (row.get(--start) != last) {
+        numTransitionsLeft--;
+        last = !last;
+      }
+    }
+    if (numTransitionsLeft >= 0) {
+      return false;
+    }
+    return oldRecordPattern(row, start + 1, counters);
+  }
+
+}